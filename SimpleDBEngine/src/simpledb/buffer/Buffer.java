@@ -12,6 +12,11 @@ import simpledb.log.LogMgr;
  * the number of times the buffer has been pinned,
  * whether its contents have been modified,
  * and if so, the id and lsn of the modifying transaction.
+ * <p>
+ * The buffer's monitor is its latch: writing the buffer to disk
+ * holds it, and so must any client that logs a modification
+ * and then makes it, so that the buffer is never written
+ * between the two.
  *
  * @author Edward Sciore
  */
@@ -64,6 +69,14 @@ public class Buffer {
         return txnum;
     }
 
+    /**
+     * Return true if the buffer's contents have been modified
+     * since they were last written to disk.
+     */
+    boolean isModified() {
+        return txnum >= 0;
+    }
+
     /**
      * Reads the contents of the specified block into
      * the contents of the buffer.
@@ -72,7 +85,7 @@ public class Buffer {
      *
      * @param b a reference to the data block
      */
-    void assignToBlock(BlockId b) {
+    synchronized void assignToBlock(BlockId b) {
         flush();
         blk = b;
         fm.read(blk, contents);
@@ -82,7 +95,7 @@ public class Buffer {
     /**
      * Write the buffer to its disk block if it is dirty.
      */
-    void flush() {
+    synchronized void flush() {
         if (txnum >= 0) {
             lm.flush(lsn);
             fm.write(blk, contents);
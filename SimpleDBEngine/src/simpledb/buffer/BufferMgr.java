@@ -6,12 +6,23 @@ import simpledb.log.LogMgr;
 
 /**
  * Manages the pinning and unpinning of buffers to blocks.
+ * The buffer pool is split into one or more partitions;
+ * each block is always assigned to the partition
+ * selected by its hash value, and each partition
+ * has its own latch, so that clients working on
+ * different partitions do not contend with each other.
+ * <p>
+ * A background writer can be started to write modified,
+ * unpinned buffers ahead of time, so that clients needing
+ * a buffer seldom have to write one out first.
  *
  * @author Edward Sciore
  */
 public class BufferMgr {
-    private Buffer[] bufferpool;
-    private int numAvailable;
+    private FileMgr fm;
+    private BufferPartition[] partitions;
+    private long writerInterval;
+    private int writerMaxPages;
     private static final long MAX_TIME = 10000; // 10 seconds
 
     /**
@@ -23,10 +34,28 @@ public class BufferMgr {
      * @param numbuffs the number of buffer slots to allocate
      */
     public BufferMgr(FileMgr fm, LogMgr lm, int numbuffs) {
-        bufferpool = new Buffer[numbuffs];
-        numAvailable = numbuffs;
-        for (int i = 0; i < numbuffs; i++)
-            bufferpool[i] = new Buffer(fm, lm);
+        this(fm, lm, numbuffs, ReplacementPolicy.LRU, 1);
+    }
+
+    /**
+     * Creates a buffer manager having the specified number
+     * of buffer slots, split evenly into the specified
+     * number of partitions, each managed by the specified
+     * replacement policy.
+     *
+     * @param numbuffs      the number of buffer slots to allocate
+     * @param policyname    the name of the replacement policy
+     * @param numpartitions the number of partitions
+     * @see ReplacementPolicy#createPolicy(String, Buffer[])
+     */
+    public BufferMgr(FileMgr fm, LogMgr lm, int numbuffs, String policyname, int numpartitions) {
+        this.fm = fm;
+        numpartitions = Math.max(1, Math.min(numpartitions, numbuffs));
+        partitions = new BufferPartition[numpartitions];
+        for (int i = 0; i < numpartitions; i++) {
+            int size = numbuffs / numpartitions + (i < numbuffs % numpartitions ? 1 : 0);
+            partitions[i] = new BufferPartition(fm, lm, size, policyname);
+        }
     }
 
     /**
@@ -34,53 +63,145 @@ public class BufferMgr {
      *
      * @return the number of available buffers
      */
-    public synchronized int available() {
+    public int available() {
+        int numAvailable = 0;
+        for (BufferPartition part : partitions)
+            numAvailable += part.available();
         return numAvailable;
     }
 
     /**
-     * Flushes the dirty buffers modified by the specified transaction.
+     * Returns the number of pins that found their block
+     * already in the buffer pool.
+     *
+     * @return the number of buffer hits
+     */
+    public long hits() {
+        long hits = 0;
+        for (BufferPartition part : partitions)
+            hits += part.hits();
+        return hits;
+    }
+
+    /**
+     * Returns the number of pins that had to read
+     * their block from disk.
+     *
+     * @return the number of buffer misses
+     */
+    public long misses() {
+        long misses = 0;
+        for (BufferPartition part : partitions)
+            misses += part.misses();
+        return misses;
+    }
+
+    /**
+     * Returns the number of misses that replaced
+     * a buffer already assigned to another block.
+     *
+     * @return the number of evictions
+     */
+    public long evictions() {
+        long evictions = 0;
+        for (BufferPartition part : partitions)
+            evictions += part.evictions();
+        return evictions;
+    }
+
+    /**
+     * Returns the number of buffers written by the background writer.
+     *
+     * @return the number of pages cleaned
+     */
+    public long pagesCleaned() {
+        long cleaned = 0;
+        for (BufferPartition part : partitions)
+            cleaned += part.cleaned();
+        return cleaned;
+    }
+
+    /**
+     * Returns the number of evictions that replaced a modified
+     * buffer, and so had to write it before reading the new block.
+     *
+     * @return the number of dirty evictions
+     */
+    public long dirtyEvictions() {
+        long dirty = 0;
+        for (BufferPartition part : partitions)
+            dirty += part.dirtyEvictions();
+        return dirty;
+    }
+
+    /**
+     * Starts the background writer.
+     * Every interval milliseconds, the writer writes at most
+     * maxpages modified, unpinned buffers to disk,
+     * forcing the log up to each buffer's LSN first.
+     * A shorter interval or a larger number of pages
+     * makes the writer more aggressive.
+     *
+     * @param interval the time between rounds, in milliseconds
+     * @param maxpages the maximum number of buffers written per round
+     */
+    public void startWriter(long interval, int maxpages) {
+        writerInterval = interval;
+        writerMaxPages = Math.max(1, maxpages);
+        Thread writer = new Thread(this::runWriter, "buffer writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Flushes the dirty buffers modified by the specified transaction,
+     * and then forces the written files to disk.
+     * Blocks of the transaction that were written earlier,
+     * when their buffers were replaced, are forced as well.
      *
      * @param txnum the transaction's id number
      */
-    public synchronized void flushAll(int txnum) {
-        for (Buffer buff : bufferpool)
-            if (buff.modifyingTx() == txnum)
-                buff.flush();
+    public void flushAll(int txnum) {
+        for (BufferPartition part : partitions)
+            part.flushAll(txnum);
+        fm.forceAll();
     }
 
+    /**
+     * Flushes every modified buffer, whichever transaction
+     * modified it, and then forces the written files to disk.
+     * The buffers are written one at a time, while
+     * clients keep using the buffer pool.
+     */
+    public void flushAll() {
+        for (BufferPartition part : partitions)
+            part.flushAll();
+        fm.forceAll();
+    }
 
     /**
      * Unpins the specified data buffer. If its pin count
-     * goes to zero, then notify any waiting threads.
+     * goes to zero, then notify the threads waiting
+     * on its partition.
      *
      * @param buff the buffer to be unpinned
      */
-    public synchronized void unpin(Buffer buff) {
-        buff.unpin();
-        if (!buff.isPinned()) {
-            numAvailable++;
-            notifyAll();
-        }
+    public void unpin(Buffer buff) {
+        partitionOf(buff.block()).unpin(buff);
     }
 
     /**
      * Pins a buffer to the specified block, potentially
-     * waiting until a buffer becomes available.
+     * waiting until a buffer of its partition becomes available.
      * If no buffer becomes available within a fixed
      * time period, then a {@link BufferAbortException} is thrown.
      *
      * @param blk a reference to a disk block
      * @return the buffer pinned to that block
      */
-    public synchronized Buffer pin(BlockId blk) {
+    public Buffer pin(BlockId blk) {
         try {
-            long timestamp = System.currentTimeMillis();
-            Buffer buff = tryToPin(blk);
-            while (buff == null && !waitingTooLong(timestamp)) {
-                wait(MAX_TIME);
-                buff = tryToPin(blk);
-            }
+            Buffer buff = partitionOf(blk).pin(blk, MAX_TIME);
             if (buff == null)
                 throw new BufferAbortException();
             return buff;
@@ -89,47 +210,27 @@ public class BufferMgr {
         }
     }
 
-    private boolean waitingTooLong(long starttime) {
-        return System.currentTimeMillis() - starttime > MAX_TIME;
-    }
-
     /**
-     * Tries to pin a buffer to the specified block.
-     * If there is already a buffer assigned to that block
-     * then that buffer is used;
-     * otherwise, an unpinned buffer from the pool is chosen.
-     * Returns a null value if there are no available buffers.
-     *
-     * @param blk a reference to a disk block
-     * @return the pinned buffer
+     * The body of the background writer thread.
+     * Each round starts at a different partition,
+     * so that the page limit does not always favor the first ones.
      */
-    private Buffer tryToPin(BlockId blk) {
-        Buffer buff = findExistingBuffer(blk);
-        if (buff == null) {
-            buff = chooseUnpinnedBuffer();
-            if (buff == null)
-                return null;
-            buff.assignToBlock(blk);
-        }
-        if (!buff.isPinned())
-            numAvailable--;
-        buff.pin();
-        return buff;
-    }
-
-    private Buffer findExistingBuffer(BlockId blk) {
-        for (Buffer buff : bufferpool) {
-            BlockId b = buff.block();
-            if (b != null && b.equals(blk))
-                return buff;
+    private void runWriter() {
+        try {
+            int start = 0;
+            while (true) {
+                Thread.sleep(writerInterval);
+                int remaining = writerMaxPages;
+                for (int i = 0; i < partitions.length && remaining > 0; i++)
+                    remaining -= partitions[(start + i) % partitions.length].clean(remaining);
+                start = (start + 1) % partitions.length;
+            }
+        } catch (InterruptedException e) {
+            // the writer only stops when the system does
         }
-        return null;
     }
 
-    private Buffer chooseUnpinnedBuffer() {
-        for (Buffer buff : bufferpool)
-            if (!buff.isPinned())
-                return buff;
-        return null;
+    private BufferPartition partitionOf(BlockId blk) {
+        return partitions[(blk.hashCode() & Integer.MAX_VALUE) % partitions.length];
     }
 }
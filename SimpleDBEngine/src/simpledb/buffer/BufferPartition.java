@@ -0,0 +1,201 @@
+package simpledb.buffer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import simpledb.file.BlockId;
+import simpledb.file.FileMgr;
+import simpledb.log.LogMgr;
+
+/**
+ * One stripe of the buffer pool.
+ * Each partition owns a fixed set of buffers, the map from
+ * the blocks assigned to them, and its own replacement policy.
+ * A partition is protected by its own latch, and clients
+ * waiting for one of its buffers wait on its own condition,
+ * so that activity in one partition never blocks or wakes
+ * clients of another.
+ */
+class BufferPartition {
+    private Buffer[] bufferpool;
+    private Map<BlockId, Buffer> bufferMap = new HashMap<>();
+    private ReplacementPolicy policy;
+    private ReentrantLock latch = new ReentrantLock();
+    private Condition bufferFreed = latch.newCondition();
+    private volatile int numAvailable;
+    private long hits = 0, misses = 0, evictions = 0;
+    private long cleaned = 0, dirtyEvictions = 0;
+    private int cleanpos = 0;
+
+    BufferPartition(FileMgr fm, LogMgr lm, int numbuffs, String policyname) {
+        bufferpool = new Buffer[numbuffs];
+        numAvailable = numbuffs;
+        for (int i = 0; i < numbuffs; i++)
+            bufferpool[i] = new Buffer(fm, lm);
+        policy = ReplacementPolicy.createPolicy(policyname, bufferpool);
+    }
+
+    int available() {
+        return numAvailable;
+    }
+
+    long hits() {
+        latch.lock();
+        try {
+            return hits;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    long misses() {
+        latch.lock();
+        try {
+            return misses;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    long evictions() {
+        latch.lock();
+        try {
+            return evictions;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    long cleaned() {
+        latch.lock();
+        try {
+            return cleaned;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    long dirtyEvictions() {
+        latch.lock();
+        try {
+            return dirtyEvictions;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    void flushAll(int txnum) {
+        latch.lock();
+        try {
+            for (Buffer buff : bufferpool)
+                if (buff.modifyingTx() == txnum)
+                    buff.flush();
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    /**
+     * Write every modified buffer of the partition to disk,
+     * pinned or not.
+     * The partition's latch is not held, so that clients
+     * can keep pinning buffers while the writes are in progress;
+     * each buffer is protected by its own latch instead.
+     */
+    void flushAll() {
+        for (Buffer buff : bufferpool)
+            buff.flush();
+    }
+
+    /**
+     * Write at most maxpages modified, unpinned buffers to disk,
+     * and return the number written.
+     * The scan resumes where the previous one stopped, so that
+     * successive calls visit every buffer of the partition.
+     * Each buffer forces the log up to its LSN before it is written.
+     */
+    int clean(int maxpages) {
+        latch.lock();
+        try {
+            int count = 0;
+            for (int i = 0; i < bufferpool.length && count < maxpages; i++) {
+                Buffer buff = bufferpool[cleanpos];
+                cleanpos = (cleanpos + 1) % bufferpool.length;
+                if (!buff.isPinned() && buff.isModified()) {
+                    buff.flush();
+                    count++;
+                }
+            }
+            cleaned += count;
+            return count;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    /**
+     * Unpin the buffer, and wake the clients waiting on this
+     * partition if its pin count goes to zero.
+     */
+    void unpin(Buffer buff) {
+        latch.lock();
+        try {
+            buff.unpin();
+            if (!buff.isPinned()) {
+                numAvailable++;
+                policy.unpinned(buff);
+                bufferFreed.signalAll();
+            }
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    /**
+     * Pin a buffer of this partition to the block, waiting at most
+     * maxtime milliseconds for one of its buffers to become available.
+     * Returns null if none did.
+     */
+    Buffer pin(BlockId blk, long maxtime) throws InterruptedException {
+        latch.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxtime);
+            Buffer buff = tryToPin(blk);
+            while (buff == null && remaining > 0) {
+                remaining = bufferFreed.awaitNanos(remaining);
+                buff = tryToPin(blk);
+            }
+            return buff;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    private Buffer tryToPin(BlockId blk) {
+        Buffer buff = bufferMap.get(blk);
+        if (buff != null)
+            hits++;
+        else {
+            buff = policy.chooseUnpinnedBuffer();
+            if (buff == null)
+                return null;
+            misses++;
+            if (buff.block() != null) {
+                evictions++;
+                if (buff.isModified())
+                    dirtyEvictions++;
+                bufferMap.remove(buff.block());
+            }
+            buff.assignToBlock(blk);
+            bufferMap.put(blk, buff);
+        }
+        if (!buff.isPinned())
+            numAvailable--;
+        buff.pin();
+        policy.pinned(buff);
+        return buff;
+    }
+}
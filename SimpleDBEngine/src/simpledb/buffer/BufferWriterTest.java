@@ -0,0 +1,39 @@
+package simpledb.buffer;
+
+import simpledb.file.BlockId;
+import simpledb.file.Page;
+import simpledb.server.SimpleDB;
+
+public class BufferWriterTest {
+    public static void main(String[] args) throws Exception {
+        SimpleDB db = new SimpleDB("bufferwritertest", 400, 3); // only 3 buffers
+        BufferMgr bm = db.bufferMgr();
+
+        // Without the writer, replacing a modified buffer writes it.
+        modify(bm, 1);
+        modify(bm, 2);
+        modify(bm, 3);
+        modify(bm, 4);
+        System.out.println("Dirty evictions without writer: " + bm.dirtyEvictions());
+
+        // With the writer, the modified buffers are cleaned ahead of time.
+        bm.startWriter(10, 8);
+        modify(bm, 5);
+        modify(bm, 6);
+        modify(bm, 7);
+        Thread.sleep(100);
+        long before = bm.dirtyEvictions();
+        Buffer buff = bm.pin(new BlockId("testfile", 8));
+        bm.unpin(buff);
+        System.out.println("Pages cleaned by writer: " + bm.pagesCleaned());
+        System.out.println("Dirty evictions with writer: " + (bm.dirtyEvictions() - before));
+    }
+
+    private static void modify(BufferMgr bm, int blknum) {
+        Buffer buff = bm.pin(new BlockId("testfile", blknum));
+        Page p = buff.contents();
+        p.setInt(80, blknum);
+        buff.setModified(1, 0); //placeholder values
+        bm.unpin(buff);
+    }
+}
@@ -0,0 +1,50 @@
+package simpledb.buffer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The clock (second-chance) replacement policy.
+ * Each buffer has a reference bit that is set when it is pinned.
+ * The clock hand sweeps the pool, clearing reference bits,
+ * and chooses the first unpinned buffer whose bit is already clear.
+ */
+class ClockPolicy implements ReplacementPolicy {
+    private Buffer[] bufferpool;
+    private boolean[] referenced;
+    private Map<Buffer, Integer> positions = new HashMap<>();
+    private int hand = 0;
+
+    public ClockPolicy(Buffer[] bufferpool) {
+        this.bufferpool = bufferpool;
+        referenced = new boolean[bufferpool.length];
+        for (int i = 0; i < bufferpool.length; i++)
+            positions.put(bufferpool[i], i);
+    }
+
+    public void pinned(Buffer buff) {
+        referenced[positions.get(buff)] = true;
+    }
+
+    public void unpinned(Buffer buff) {
+    }
+
+    /**
+     * Sweep the pool at most twice; after the first pass
+     * every unpinned buffer has had its reference bit cleared.
+     */
+    public Buffer chooseUnpinnedBuffer() {
+        for (int i = 0; i < 2 * bufferpool.length; i++) {
+            int pos = hand;
+            hand = (hand + 1) % bufferpool.length;
+            Buffer buff = bufferpool[pos];
+            if (buff.isPinned())
+                continue;
+            if (referenced[pos])
+                referenced[pos] = false;
+            else
+                return buff;
+        }
+        return null;
+    }
+}
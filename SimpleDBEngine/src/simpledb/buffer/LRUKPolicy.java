@@ -0,0 +1,88 @@
+package simpledb.buffer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import simpledb.file.BlockId;
+
+/**
+ * The LRU-K replacement policy.
+ * The policy chooses the unpinned buffer whose K-th most recent
+ * pin is the oldest. Buffers that have been pinned fewer than
+ * K times since they were assigned to their block are chosen first,
+ * oldest most-recent pin first.
+ * The reference history is kept per buffer and is discarded
+ * when the buffer is assigned to a different block.
+ */
+class LRUKPolicy implements ReplacementPolicy {
+    static final int DEFAULT_K = 2;
+    private int k;
+    private long clock = 0;
+    private Map<Buffer, History> histories = new HashMap<>();
+    private TreeSet<History> unpinned = new TreeSet<>();
+
+    public LRUKPolicy(Buffer[] bufferpool, int k) {
+        this.k = k;
+        for (int i = 0; i < bufferpool.length; i++) {
+            History h = new History(bufferpool[i], i);
+            histories.put(bufferpool[i], h);
+            unpinned.add(h);
+        }
+    }
+
+    public void pinned(Buffer buff) {
+        History h = histories.get(buff);
+        unpinned.remove(h);
+        h.recordPin(buff.block(), ++clock);
+    }
+
+    public void unpinned(Buffer buff) {
+        unpinned.add(histories.get(buff));
+    }
+
+    public Buffer chooseUnpinnedBuffer() {
+        return unpinned.isEmpty() ? null : unpinned.first().buff;
+    }
+
+    /**
+     * The last K pin times of a buffer, kept in a circular array.
+     * A pin time of 0 means "never".
+     */
+    private class History implements Comparable<History> {
+        Buffer buff;
+        int id;
+        BlockId blk;
+        long[] times = new long[k];
+        int latest = 0;
+
+        History(Buffer buff, int id) {
+            this.buff = buff;
+            this.id = id;
+        }
+
+        void recordPin(BlockId b, long time) {
+            if (blk == null || !blk.equals(b)) {
+                blk = b;
+                times = new long[k];
+            }
+            latest = (latest + 1) % k;
+            times[latest] = time;
+        }
+
+        long kthTime() {
+            return times[(latest + 1) % k];
+        }
+
+        long lastTime() {
+            return times[latest];
+        }
+
+        public int compareTo(History h) {
+            int cmp = Long.compare(kthTime(), h.kthTime());
+            if (cmp == 0)
+                cmp = Long.compare(lastTime(), h.lastTime());
+            return (cmp != 0) ? cmp : Integer.compare(id, h.id);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package simpledb.buffer;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * The least-recently-used replacement policy.
+ * The unpinned buffers are kept in the order in which
+ * they were unpinned, so that choosing a victim,
+ * pinning and unpinning all take constant time.
+ */
+class LRUPolicy implements ReplacementPolicy {
+    private LinkedHashSet<Buffer> unpinned = new LinkedHashSet<>();
+
+    public LRUPolicy(Buffer[] bufferpool) {
+        for (Buffer buff : bufferpool)
+            unpinned.add(buff);
+    }
+
+    public void pinned(Buffer buff) {
+        unpinned.remove(buff);
+    }
+
+    public void unpinned(Buffer buff) {
+        unpinned.add(buff);
+    }
+
+    public Buffer chooseUnpinnedBuffer() {
+        Iterator<Buffer> iter = unpinned.iterator();
+        return iter.hasNext() ? iter.next() : null;
+    }
+}
@@ -0,0 +1,58 @@
+package simpledb.buffer;
+
+/**
+ * The interface implemented by each buffer replacement strategy.
+ * The buffer manager tells the policy whenever a buffer is
+ * pinned or becomes unpinned, and asks it for a victim
+ * whenever a block that is not in the pool needs a buffer.
+ * The policy is only called while the buffer manager holds
+ * its lock, so implementations need no synchronization.
+ */
+public interface ReplacementPolicy {
+    static final String LRU = "lru", CLOCK = "clock", LRUK = "lruk";
+
+    /**
+     * Called each time the specified buffer is pinned,
+     * including when it is already pinned by another client.
+     *
+     * @param buff the pinned buffer
+     */
+    void pinned(Buffer buff);
+
+    /**
+     * Called when the pin count of the specified buffer
+     * drops to zero.
+     *
+     * @param buff the unpinned buffer
+     */
+    void unpinned(Buffer buff);
+
+    /**
+     * Choose an unpinned buffer to be replaced.
+     * Returns null if every buffer is pinned.
+     *
+     * @return the buffer to be replaced, or null
+     */
+    Buffer chooseUnpinnedBuffer();
+
+    /**
+     * Create the policy having the specified name
+     * for the specified buffer pool.
+     *
+     * @param name       one of LRU, CLOCK or LRUK
+     * @param bufferpool the buffers managed by the policy
+     * @return the replacement policy
+     */
+    static ReplacementPolicy createPolicy(String name, Buffer[] bufferpool) {
+        switch (name) {
+        case LRU:
+            return new LRUPolicy(bufferpool);
+        case CLOCK:
+            return new ClockPolicy(bufferpool);
+        case LRUK:
+            return new LRUKPolicy(bufferpool, LRUKPolicy.DEFAULT_K);
+        default:
+            throw new IllegalArgumentException("unknown replacement policy " + name);
+        }
+    }
+}
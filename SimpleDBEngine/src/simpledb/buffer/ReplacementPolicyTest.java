@@ -0,0 +1,28 @@
+package simpledb.buffer;
+
+import simpledb.file.BlockId;
+import simpledb.server.SimpleDB;
+
+public class ReplacementPolicyTest {
+    public static void main(String[] args) {
+        String[] policies = {ReplacementPolicy.LRU, ReplacementPolicy.CLOCK, ReplacementPolicy.LRUK};
+        for (String policy : policies) {
+            SimpleDB.REPLACEMENT_POLICY = policy;
+            SimpleDB db = new SimpleDB("policytest", 400, 8);
+            BufferMgr bm = db.bufferMgr();
+
+            // a hot set of 4 blocks, interleaved with a sequential scan of 40 blocks
+            for (int i = 0; i < 40; i++) {
+                pinAndUnpin(bm, new BlockId("testfile", i % 4));
+                pinAndUnpin(bm, new BlockId("testfile", 4 + i));
+            }
+            System.out.println(policy + ": hits=" + bm.hits() + " misses=" + bm.misses()
+                    + " evictions=" + bm.evictions());
+        }
+    }
+
+    private static void pinAndUnpin(BufferMgr bm, BlockId blk) {
+        Buffer buff = bm.pin(blk);
+        bm.unpin(buff);
+    }
+}
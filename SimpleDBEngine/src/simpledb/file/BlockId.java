@@ -27,6 +27,6 @@ public class BlockId {
     }
 
     public int hashCode() {
-        return toString().hashCode();
+        return 31 * filename.hashCode() + blknum;
     }
 }
@@ -3,18 +3,41 @@ package simpledb.file;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FileMgr {
     private File dbDirectory;
     private int blocksize;
     private boolean isNew;
-    private Map<String, RandomAccessFile> openFiles = new HashMap<>();
+    private String mode;
+    private Map<String, RandomAccessFile> openFiles = new ConcurrentHashMap<>();
+    private Set<String> unforced = ConcurrentHashMap.newKeySet();
 
     public FileMgr(File dbDirectory, int blocksize) {
+        this(dbDirectory, blocksize, "rw");
+    }
+
+    /**
+     * Create a file manager that opens its files in the specified
+     * {@link RandomAccessFile} mode.
+     * In mode "rws" or "rwd" every write is synchronous;
+     * in mode "rw" writes reach the disk only when the file
+     * is forced, which is done at the points the recovery
+     * manager needs them to be durable.
+     *
+     * @param dbDirectory the database directory
+     * @param blocksize   the block size
+     * @param mode        the mode used to open files
+     * @see #force(String)
+     */
+    public FileMgr(File dbDirectory, int blocksize, String mode) {
         this.dbDirectory = dbDirectory;
         this.blocksize = blocksize;
+        this.mode = mode;
         isNew = !dbDirectory.exists();
 
         // create the directory if the database is new
@@ -31,7 +54,7 @@ public class FileMgr {
         try {
             RandomAccessFile f = getFile(blk.fileName());
             f.seek(blk.number() * blocksize);
-            f.getChannel().read(p.contents());
+            f.getChannel().read(p.ownContents());
         } catch (IOException e) {
             throw new RuntimeException("cannot read block " + blk);
         }
@@ -42,6 +65,49 @@ public class FileMgr {
             RandomAccessFile f = getFile(blk.fileName());
             f.seek(blk.number() * blocksize);
             f.getChannel().write(p.contents());
+            written(blk.fileName());
+        } catch (IOException e) {
+            throw new RuntimeException("cannot write block" + blk);
+        }
+    }
+
+    /**
+     * Read the specified number of consecutive blocks,
+     * starting at the specified block, into the page,
+     * starting at the specified byte offset of the page.
+     *
+     * @param blk       the first block to read
+     * @param p         the page receiving the blocks
+     * @param offset    the position in the page of the first block
+     * @param numblocks the number of blocks
+     */
+    public synchronized void read(BlockId blk, Page p, int offset, int numblocks) {
+        try {
+            RandomAccessFile f = getFile(blk.fileName());
+            f.seek(blk.number() * blocksize);
+            f.getChannel().read(region(p.ownContents(), offset, numblocks));
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read block " + blk);
+        }
+    }
+
+    /**
+     * Write the specified number of consecutive blocks,
+     * held in the page starting at the specified byte offset,
+     * to the file, starting at the specified block.
+     * The file is extended if necessary.
+     *
+     * @param blk       the first block to write
+     * @param p         the page holding the blocks
+     * @param offset    the position in the page of the first block
+     * @param numblocks the number of blocks
+     */
+    public synchronized void write(BlockId blk, Page p, int offset, int numblocks) {
+        try {
+            RandomAccessFile f = getFile(blk.fileName());
+            f.seek(blk.number() * blocksize);
+            f.getChannel().write(region(p.contents(), offset, numblocks));
+            written(blk.fileName());
         } catch (IOException e) {
             throw new RuntimeException("cannot write block" + blk);
         }
@@ -55,6 +121,7 @@ public class FileMgr {
             RandomAccessFile f = getFile(blk.fileName());
             f.seek(blk.number() * blocksize);
             f.write(b);
+            written(filename);
         } catch (IOException e) {
             throw new RuntimeException("cannot append block" + blk);
         }
@@ -70,6 +137,66 @@ public class FileMgr {
         }
     }
 
+    /**
+     * Force the contents of the specified file to disk.
+     * Nothing needs to be done if the file has not been
+     * written since it was last forced, or if its
+     * writes are synchronous anyway.
+     * A caller that finds the file being forced by another
+     * thread waits for that force to complete.
+     *
+     * @param filename the name of the file
+     */
+    public void force(String filename) {
+        try {
+            FileChannel fc = getFile(filename).getChannel();
+            synchronized (fc) {
+                if (unforced.remove(filename))
+                    fc.force(true);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("cannot force " + filename);
+        }
+    }
+
+    /**
+     * Force every file written since it was last forced.
+     * Temporary tables are never forced, since they are
+     * deleted at restart.
+     */
+    public void forceAll() {
+        for (String filename : unforced)
+            force(filename);
+    }
+
+    /**
+     * Return the names of the files in the database directory.
+     *
+     * @return the file names
+     */
+    public String[] fileNames() {
+        return dbDirectory.list();
+    }
+
+    /**
+     * Close and delete the specified file.
+     *
+     * @param filename the name of the file
+     */
+    public void delete(String filename) {
+        try {
+            synchronized (openFiles) {
+                RandomAccessFile f = openFiles.remove(filename);
+                if (f != null)
+                    f.close();
+            }
+            unforced.remove(filename);
+            new File(dbDirectory, filename).delete();
+        } catch (IOException e) {
+            throw new RuntimeException("cannot delete " + filename);
+        }
+    }
+
     public boolean isNew() {
         return isNew;
     }
@@ -78,12 +205,41 @@ public class FileMgr {
         return blocksize;
     }
 
-    private RandomAccessFile getFile(String filename) throws IOException {
+    /**
+     * Return a view of the specified blocks of a page's buffer.
+     */
+    protected ByteBuffer region(ByteBuffer bb, int offset, int numblocks) {
+        ByteBuffer region = bb.duplicate();
+        region.position(offset).limit(offset + numblocks * blocksize);
+        return region;
+    }
+
+    /**
+     * Note that the specified file has been written and
+     * must be forced before its contents are known to be durable.
+     */
+    protected void written(String filename) {
+        if (mode.equals("rw") && !filename.startsWith("temp"))
+            unforced.add(filename);
+    }
+
+    /**
+     * Return the open file having the specified name,
+     * opening it if necessary.
+     * Files are opened at most once, even when several
+     * threads ask for the same file concurrently.
+     */
+    protected RandomAccessFile getFile(String filename) throws IOException {
         RandomAccessFile f = openFiles.get(filename);
         if (f == null) {
-            File dbTable = new File(dbDirectory, filename);
-            f = new RandomAccessFile(dbTable, "rws");
-            openFiles.put(filename, f);
+            synchronized (openFiles) {
+                f = openFiles.get(filename);
+                if (f == null) {
+                    File dbTable = new File(dbDirectory, filename);
+                    f = new RandomAccessFile(dbTable, mode);
+                    openFiles.put(filename, f);
+                }
+            }
         }
         return f;
     }
@@ -0,0 +1,85 @@
+package simpledb.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A file manager that maps files into memory.
+ * Reading a block does not copy it: the page becomes a
+ * read-only view of the block in the mapping, and copies
+ * it only when the page is first modified.
+ * Writes and appends use positional I/O, which the
+ * mappings see through the operating system's page cache.
+ * <p>
+ * A file is remapped when a block beyond its mapping is read
+ * and the file has grown by more than a quarter since it was
+ * last mapped; otherwise the block is read by copying it.
+ * Temporary tables are never mapped, since they are mostly
+ * written and are deleted at restart.
+ */
+public class MappedFileMgr extends PositionalFileMgr {
+    private Map<String, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+    public MappedFileMgr(File dbDirectory, int blocksize) {
+        super(dbDirectory, blocksize);
+    }
+
+    public MappedFileMgr(File dbDirectory, int blocksize, String mode) {
+        super(dbDirectory, blocksize, mode);
+    }
+
+    public void read(BlockId blk, Page p) {
+        try {
+            MappedByteBuffer mbb = mapping(blk);
+            if (mbb == null) {
+                super.read(blk, p);
+                return;
+            }
+            int pos = blk.number() * blockSize();
+            ByteBuffer block = mbb.duplicate();
+            block.position(pos).limit(pos + blockSize());
+            p.share(block.slice());
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read block " + blk);
+        }
+    }
+
+    public void delete(String filename) {
+        mappings.remove(filename);
+        super.delete(filename);
+    }
+
+    /**
+     * Return a mapping of the file that contains the block,
+     * or null if the block should be read without one.
+     */
+    private MappedByteBuffer mapping(BlockId blk) throws IOException {
+        String filename = blk.fileName();
+        if (filename.startsWith("temp"))
+            return null;
+        long end = (long) (blk.number() + 1) * blockSize();
+        MappedByteBuffer mbb = mappings.get(filename);
+        if (mbb != null && mbb.capacity() >= end)
+            return mbb;
+        RandomAccessFile f = getFile(filename);
+        synchronized (f) {
+            mbb = mappings.get(filename);
+            if (mbb != null && mbb.capacity() >= end)
+                return mbb;
+            long length = f.length();
+            if (length < end || length > Integer.MAX_VALUE)
+                return null;
+            if (mbb != null && length - mbb.capacity() <= mbb.capacity() / 4)
+                return null;
+            mbb = f.getChannel().map(MapMode.READ_ONLY, 0, length);
+            mappings.put(filename, mbb);
+            return mbb;
+        }
+    }
+}
@@ -6,16 +6,18 @@ import java.nio.charset.StandardCharsets;
 
 public class Page {
     private ByteBuffer bb;
+    private ByteBuffer own;
+    private boolean shared = false;
     public static Charset CHARSET = StandardCharsets.US_ASCII;
 
     // For creating data buffers
     public Page(int blocksize) {
-        bb = ByteBuffer.allocateDirect(blocksize);
+        bb = own = ByteBuffer.allocateDirect(blocksize);
     }
 
     // For creating log pages
     public Page(byte[] b) {
-        bb = ByteBuffer.wrap(b);
+        bb = own = ByteBuffer.wrap(b);
     }
 
     public int getInt(int offset) {
@@ -23,7 +25,7 @@ public class Page {
     }
 
     public void setInt(int offset, int n) {
-        bb.putInt(offset, n);
+        writable().putInt(offset, n);
     }
 
     public byte[] getBytes(int offset) {
@@ -35,9 +37,10 @@ public class Page {
     }
 
     public void setBytes(int offset, byte[] b) {
-        bb.position(offset);
-        bb.putInt(b.length);
-        bb.put(b);
+        ByteBuffer buf = writable();
+        buf.position(offset);
+        buf.putInt(b.length);
+        buf.put(b);
     }
 
     public String getString(int offset) {
@@ -55,9 +58,57 @@ public class Page {
         return Integer.BYTES + (strlen * (int) bytesPerChar);
     }
 
+    /**
+     * Return a copy of the page's contents.
+     * The copy does not disturb the position of the page,
+     * and so may be taken while other threads read the page.
+     *
+     * @return a copy of the page's bytes
+     */
+    public byte[] copy() {
+        ByteBuffer buf = bb.duplicate();
+        buf.clear();
+        byte[] b = new byte[buf.remaining()];
+        buf.get(b);
+        return b;
+    }
+
     // a package private method, needed by FileMgr
     ByteBuffer contents() {
         bb.position(0);
         return bb;
     }
+
+    // a package private method, needed by FileMgr to read a block into the page;
+    // the page stops sharing any mapped block, without copying it
+    ByteBuffer ownContents() {
+        bb = own;
+        shared = false;
+        return contents();
+    }
+
+    // a package private method, needed by MappedFileMgr;
+    // the page becomes a read-only view of a mapped block
+    void share(ByteBuffer block) {
+        bb = block;
+        shared = true;
+    }
+
+    /**
+     * Return the buffer to be modified.
+     * A page that shares a mapped block first copies
+     * the block into its own buffer, so that modifications
+     * never reach the file before the page is written.
+     */
+    private ByteBuffer writable() {
+        if (shared) {
+            ByteBuffer block = bb.duplicate();
+            block.clear();
+            own.clear();
+            own.put(block);
+            bb = own;
+            shared = false;
+        }
+        return bb;
+    }
 }
@@ -0,0 +1,98 @@
+package simpledb.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file manager that uses positional channel I/O instead of
+ * seek followed by read or write.
+ * Because a positional read or write does not touch the
+ * file pointer, reads and writes need no lock at all and
+ * can proceed concurrently, even on the same file.
+ * Only appends to the same file are serialized,
+ * so that each append gets its own block number.
+ */
+public class PositionalFileMgr extends FileMgr {
+
+    public PositionalFileMgr(File dbDirectory, int blocksize) {
+        super(dbDirectory, blocksize);
+    }
+
+    public PositionalFileMgr(File dbDirectory, int blocksize, String mode) {
+        super(dbDirectory, blocksize, mode);
+    }
+
+    public void read(BlockId blk, Page p) {
+        try {
+            FileChannel fc = getFile(blk.fileName()).getChannel();
+            ByteBuffer bb = p.ownContents();
+            long pos = (long) blk.number() * blockSize();
+            while (bb.hasRemaining()) {
+                if (fc.read(bb, pos + bb.position()) < 0)
+                    break; // reading past the end of the file
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read block " + blk);
+        }
+    }
+
+    public void read(BlockId blk, Page p, int offset, int numblocks) {
+        try {
+            FileChannel fc = getFile(blk.fileName()).getChannel();
+            ByteBuffer bb = region(p.ownContents(), offset, numblocks);
+            long pos = (long) blk.number() * blockSize() - offset;
+            while (bb.hasRemaining()) {
+                if (fc.read(bb, pos + bb.position()) < 0)
+                    break; // reading past the end of the file
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read block " + blk);
+        }
+    }
+
+    public void write(BlockId blk, Page p, int offset, int numblocks) {
+        try {
+            FileChannel fc = getFile(blk.fileName()).getChannel();
+            ByteBuffer bb = region(p.contents(), offset, numblocks);
+            long pos = (long) blk.number() * blockSize() - offset;
+            while (bb.hasRemaining())
+                fc.write(bb, pos + bb.position());
+            written(blk.fileName());
+        } catch (IOException e) {
+            throw new RuntimeException("cannot write block" + blk);
+        }
+    }
+
+    public void write(BlockId blk, Page p) {
+        try {
+            FileChannel fc = getFile(blk.fileName()).getChannel();
+            ByteBuffer bb = p.contents();
+            long pos = (long) blk.number() * blockSize();
+            while (bb.hasRemaining())
+                fc.write(bb, pos + bb.position());
+            written(blk.fileName());
+        } catch (IOException e) {
+            throw new RuntimeException("cannot write block" + blk);
+        }
+    }
+
+    public BlockId append(String filename) {
+        try {
+            RandomAccessFile f = getFile(filename);
+            synchronized (f) {
+                BlockId blk = new BlockId(filename, length(filename));
+                ByteBuffer bb = ByteBuffer.allocate(blockSize());
+                long pos = (long) blk.number() * blockSize();
+                while (bb.hasRemaining())
+                    f.getChannel().write(bb, pos + bb.position());
+                written(filename);
+                return blk;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("cannot append to " + filename);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import static java.sql.Types.INTEGER;
 
 import simpledb.file.BlockId;
 import simpledb.query.Constant;
+import simpledb.query.MutableConstant;
 import simpledb.record.Layout;
 import simpledb.record.RID;
 import simpledb.record.Schema;
@@ -21,6 +22,8 @@ public class BTPage {
     private Transaction tx;
     private BlockId currentblk;
     private Layout layout;
+    private int datavalfld, blockfld, idfld;
+    private MutableConstant probe = new MutableConstant();
 
     /**
      * Open a node for the specified B-tree block.
@@ -33,6 +36,10 @@ public class BTPage {
         this.tx = tx;
         this.currentblk = currentblk;
         this.layout = layout;
+        Schema sch = layout.schema();
+        datavalfld = sch.index("dataval");
+        blockfld = sch.index("block");
+        idfld = sch.index("id"); // -1 in a directory page
         tx.pin(currentblk);
     }
 
@@ -46,7 +53,7 @@ public class BTPage {
      */
     public int findSlotBefore(Constant searchkey) {
         int slot = 0;
-        while (slot < getNumRecs() && getDataVal(slot).compareTo(searchkey) < 0)
+        while (slot < getNumRecs() && probeDataVal(slot).compareTo(searchkey) < 0)
             slot++;
         return slot - 1;
     }
@@ -94,7 +101,7 @@ public class BTPage {
      * @return the dataval of the record at that slot
      */
     public Constant getDataVal(int slot) {
-        return getVal(slot, "dataval");
+        return getVal(slot, datavalfld);
     }
 
     /**
@@ -156,7 +163,7 @@ public class BTPage {
      * @return the block number stored in that record
      */
     public int getChildNum(int slot) {
-        return getInt(slot, "block");
+        return getInt(slot, blockfld);
     }
 
     /**
@@ -168,8 +175,8 @@ public class BTPage {
      */
     public void insertDir(int slot, Constant val, int blknum) {
         insert(slot);
-        setVal(slot, "dataval", val);
-        setInt(slot, "block", blknum);
+        setVal(slot, datavalfld, val);
+        setInt(slot, blockfld, blknum);
     }
 
     // Methods called only by BTreeLeaf
@@ -181,7 +188,7 @@ public class BTPage {
      * @return the dataRID value store at that slot
      */
     public RID getDataRid(int slot) {
-        return new RID(getInt(slot, "block"), getInt(slot, "id"));
+        return new RID(getInt(slot, blockfld), getInt(slot, idfld));
     }
 
     /**
@@ -193,9 +200,9 @@ public class BTPage {
      */
     public void insertLeaf(int slot, Constant val, RID rid) {
         insert(slot);
-        setVal(slot, "dataval", val);
-        setInt(slot, "block", rid.blockNumber());
-        setInt(slot, "id", rid.slot());
+        setVal(slot, datavalfld, val);
+        setInt(slot, blockfld, rid.blockNumber());
+        setInt(slot, idfld, rid.slot());
     }
 
     /**
@@ -221,40 +228,52 @@ public class BTPage {
 
     // Private methods
 
-    private int getInt(int slot, String fldname) {
-        int pos = fldpos(slot, fldname);
+    private int getInt(int slot, int fldindex) {
+        int pos = fldpos(slot, fldindex);
         return tx.getInt(currentblk, pos);
     }
 
-    private String getString(int slot, String fldname) {
-        int pos = fldpos(slot, fldname);
+    private String getString(int slot, int fldindex) {
+        int pos = fldpos(slot, fldindex);
         return tx.getString(currentblk, pos);
     }
 
-    private Constant getVal(int slot, String fldname) {
-        int type = layout.schema().type(fldname);
+    private Constant getVal(int slot, int fldindex) {
+        int type = layout.schema().type(fldindex);
         if (type == INTEGER)
-            return new Constant(getInt(slot, fldname));
+            return Constant.of(getInt(slot, fldindex));
         else
-            return new Constant(getString(slot, fldname));
+            return new Constant(getString(slot, fldindex));
     }
 
-    private void setInt(int slot, String fldname, int val) {
-        int pos = fldpos(slot, fldname);
+    /**
+     * Load the dataval of the record at the specified slot
+     * into the page's value holder, for a comparison.
+     */
+    private Constant probeDataVal(int slot) {
+        if (layout.schema().type(datavalfld) == INTEGER)
+            probe.set(getInt(slot, datavalfld));
+        else
+            probe.set(getString(slot, datavalfld));
+        return probe;
+    }
+
+    private void setInt(int slot, int fldindex, int val) {
+        int pos = fldpos(slot, fldindex);
         tx.setInt(currentblk, pos, val, true);
     }
 
-    private void setString(int slot, String fldname, String val) {
-        int pos = fldpos(slot, fldname);
+    private void setString(int slot, int fldindex, String val) {
+        int pos = fldpos(slot, fldindex);
         tx.setString(currentblk, pos, val, true);
     }
 
-    private void setVal(int slot, String fldname, Constant val) {
-        int type = layout.schema().type(fldname);
+    private void setVal(int slot, int fldindex, Constant val) {
+        int type = layout.schema().type(fldindex);
         if (type == INTEGER)
-            setInt(slot, fldname, val.asInt());
+            setInt(slot, fldindex, val.asInt());
         else
-            setString(slot, fldname, val.asString());
+            setString(slot, fldindex, val.asString());
     }
 
     private void setNumRecs(int n) {
@@ -268,25 +287,25 @@ public class BTPage {
     }
 
     private void copyRecord(int from, int to) {
-        Schema sch = layout.schema();
-        for (String fldname : sch.fields())
-            setVal(to, fldname, getVal(from, fldname));
+        int nfields = layout.schema().fields().size();
+        for (int i = 0; i < nfields; i++)
+            setVal(to, i, getVal(from, i));
     }
 
     private void transferRecs(int slot, BTPage dest) {
         int destslot = 0;
+        int nfields = layout.schema().fields().size();
         while (slot < getNumRecs()) {
             dest.insert(destslot);
-            Schema sch = layout.schema();
-            for (String fldname : sch.fields())
-                dest.setVal(destslot, fldname, getVal(slot, fldname));
+            for (int i = 0; i < nfields; i++)
+                dest.setVal(destslot, i, getVal(slot, i));
             delete(slot);
             destslot++;
         }
     }
 
-    private int fldpos(int slot, String fldname) {
-        int offset = layout.offset(fldname);
+    private int fldpos(int slot, int fldindex) {
+        int offset = layout.offset(fldindex);
         return slotpos(slot) + offset;
     }
 
@@ -37,7 +37,7 @@ public class BTreeIndex implements Index {
         // deal with the leaves
         leaftbl = idxname + "leaf";
         this.leafLayout = leafLayout;
-        if (tx.size(leaftbl) == 0) {
+        if (tx.currentSize(leaftbl) == 0 && tx.size(leaftbl) == 0) {
             BlockId blk = tx.append(leaftbl);
             BTPage node = new BTPage(tx, blk, leafLayout);
             node.format(blk, -1);
@@ -50,7 +50,7 @@ public class BTreeIndex implements Index {
         String dirtbl = idxname + "dir";
         dirLayout = new Layout(dirsch);
         rootblk = new BlockId(dirtbl, 0);
-        if (tx.size(dirtbl) == 0) {
+        if (tx.currentSize(dirtbl) == 0 && tx.size(dirtbl) == 0) {
             // create new root block
             tx.append(dirtbl);
             BTPage node = new BTPage(tx, rootblk, dirLayout);
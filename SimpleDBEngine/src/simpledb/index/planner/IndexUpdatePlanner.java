@@ -118,7 +118,7 @@ public class IndexUpdatePlanner implements UpdatePlanner {
     }
 
     public int executeCreateTable(CreateTableData data, Transaction tx) {
-        mdm.createTable(data.tableName(), data.newSchema(), tx);
+        mdm.createTable(data.tableName(), data.newSchema(), data.format(), tx);
         return 0;
     }
 
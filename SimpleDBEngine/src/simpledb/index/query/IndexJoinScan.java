@@ -2,6 +2,7 @@ package simpledb.index.query;
 
 import simpledb.index.Index;
 import simpledb.query.Constant;
+import simpledb.query.FieldSources;
 import simpledb.query.Scan;
 import simpledb.record.TableScan;
 
@@ -18,9 +19,11 @@ public class IndexJoinScan implements Scan {
     private Scan lhs;
     private Index idx;
     private String joinfield;
+    private int joinindex;
     private TableScan rhs;
     private boolean lhsIsEmpty;
     private boolean rhsIsEmpty;
+    private FieldSources sources = new FieldSources();
 
     /**
      * Creates an index join scan for the specified LHS scan and
@@ -39,6 +42,7 @@ public class IndexJoinScan implements Scan {
         lhsIsEmpty = !lhs.next();
         rhsIsEmpty = !rhs.next();
         rhs.beforeFirst();
+        joinindex = lhs.fieldIndex(joinfield);
         beforeFirst();
     }
 
@@ -116,6 +120,39 @@ public class IndexJoinScan implements Scan {
             return lhs.getString(fldname);
     }
 
+    /**
+     * Resolve the field to the RHS table, or else to the LHS scan.
+     *
+     * @see simpledb.query.Scan#fieldIndex(java.lang.String)
+     */
+    public int fieldIndex(String fldname) {
+        if (rhs.hasField(fldname))
+            return sources.add(false, rhs.fieldIndex(fldname));
+        else
+            return sources.add(true, lhs.fieldIndex(fldname));
+    }
+
+    public int getInt(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return lhs.getInt(sources.index(fldindex));
+        else
+            return rhs.getInt(sources.index(fldindex));
+    }
+
+    public String getString(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return lhs.getString(sources.index(fldindex));
+        else
+            return rhs.getString(sources.index(fldindex));
+    }
+
+    public Constant getVal(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return lhs.getVal(sources.index(fldindex));
+        else
+            return rhs.getVal(sources.index(fldindex));
+    }
+
     /**
      * Returns true if the field is in the schema.
      *
@@ -138,7 +175,7 @@ public class IndexJoinScan implements Scan {
 
     private void resetIndex() {
         if (!lhsIsEmpty) {
-            Constant searchkey = lhs.getVal(joinfield);
+            Constant searchkey = lhs.getVal(joinindex);
             idx.beforeFirst(searchkey);
         }
     }
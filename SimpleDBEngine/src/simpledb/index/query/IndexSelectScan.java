@@ -88,6 +88,27 @@ public class IndexSelectScan implements Scan {
         return ts.getVal(fldname);
     }
 
+    /**
+     * Returns the index of the field in the data record.
+     *
+     * @see simpledb.query.Scan#fieldIndex(java.lang.String)
+     */
+    public int fieldIndex(String fldname) {
+        return ts.fieldIndex(fldname);
+    }
+
+    public int getInt(int fldindex) {
+        return ts.getInt(fldindex);
+    }
+
+    public String getString(int fldindex) {
+        return ts.getString(fldindex);
+    }
+
+    public Constant getVal(int fldindex) {
+        return ts.getVal(fldindex);
+    }
+
     /**
      * Returns whether the data record has the specified field.
      *
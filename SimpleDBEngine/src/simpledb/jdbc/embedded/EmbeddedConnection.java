@@ -17,6 +17,7 @@ class EmbeddedConnection extends ConnectionAdapter {
     private SimpleDB db;
     private Transaction currentTx;
     private Planner planner;
+    private boolean readOnly = false;
 
     /**
      * Creates a connection
@@ -49,7 +50,7 @@ class EmbeddedConnection extends ConnectionAdapter {
      */
     public void commit() throws SQLException {
         currentTx.commit();
-        currentTx = db.newTx();
+        currentTx = newTx();
     }
 
     /**
@@ -57,7 +58,27 @@ class EmbeddedConnection extends ConnectionAdapter {
      */
     public void rollback() throws SQLException {
         currentTx.rollback();
-        currentTx = db.newTx();
+        currentTx = newTx();
+    }
+
+    /**
+     * Puts the connection in read-only mode, or takes it out.
+     * The current transaction is committed, and the new one
+     * is read-only if so specified: it writes no log records
+     * and takes no locks, reading a snapshot of the database.
+     */
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        if (readOnly == this.readOnly)
+            return;
+        this.readOnly = readOnly;
+        commit();
+    }
+
+    /**
+     * Returns whether the connection is in read-only mode.
+     */
+    public boolean isReadOnly() throws SQLException {
+        return readOnly;
     }
 
     /**
@@ -69,5 +90,9 @@ class EmbeddedConnection extends ConnectionAdapter {
     Transaction getTransaction() {
         return currentTx;
     }
+
+    private Transaction newTx() {
+        return readOnly ? db.newReadOnlyTx() : db.newTx();
+    }
 }
 
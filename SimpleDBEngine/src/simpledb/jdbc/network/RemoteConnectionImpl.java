@@ -17,6 +17,7 @@ class RemoteConnectionImpl extends UnicastRemoteObject implements RemoteConnecti
     private SimpleDB db;
     private Transaction currentTx;
     private Planner planner;
+    private boolean readOnly = false;
 
     /**
      * Creates a remote connection
@@ -49,6 +50,29 @@ class RemoteConnectionImpl extends UnicastRemoteObject implements RemoteConnecti
         currentTx.commit();
     }
 
+    /**
+     * Puts the connection in read-only mode, or takes it out.
+     * The current transaction is committed, and the new one
+     * is read-only if so specified.
+     *
+     * @see simpledb.jdbc.network.RemoteConnection#setReadOnly(boolean)
+     */
+    public void setReadOnly(boolean readOnly) throws RemoteException {
+        if (readOnly == this.readOnly)
+            return;
+        this.readOnly = readOnly;
+        commit();
+    }
+
+    /**
+     * Returns whether the connection is in read-only mode.
+     *
+     * @see simpledb.jdbc.network.RemoteConnection#isReadOnly()
+     */
+    public boolean isReadOnly() throws RemoteException {
+        return readOnly;
+    }
+
 // The following methods are used by the server-side classes.
 
     /**
@@ -67,7 +91,7 @@ class RemoteConnectionImpl extends UnicastRemoteObject implements RemoteConnecti
      */
     void commit() {
         currentTx.commit();
-        currentTx = db.newTx();
+        currentTx = newTx();
     }
 
     /**
@@ -76,7 +100,11 @@ class RemoteConnectionImpl extends UnicastRemoteObject implements RemoteConnecti
      */
     void rollback() {
         currentTx.rollback();
-        currentTx = db.newTx();
+        currentTx = newTx();
+    }
+
+    private Transaction newTx() {
+        return readOnly ? db.newReadOnlyTx() : db.newTx();
     }
 }
 
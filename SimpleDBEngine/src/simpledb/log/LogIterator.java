@@ -2,33 +2,49 @@ package simpledb.log;
 
 import java.util.Iterator;
 
-import simpledb.file.BlockId;
 import simpledb.file.FileMgr;
 import simpledb.file.Page;
 
 /**
  * A class that provides the ability to move through the
  * records of the log file in reverse order.
+ * The log blocks are read backwards in chunks of consecutive
+ * blocks; the chunk size starts at one block and doubles
+ * with each read, up to a maximum, so that short traversals
+ * such as the rollback of a small transaction stay cheap
+ * while long ones read the log in large sequential pieces.
+ * A chunk never extends past the start of a log segment,
+ * and the iteration stops at the first block of the
+ * oldest segment that has not been truncated.
  *
  * @author Edward Sciore
  */
 class LogIterator implements Iterator<byte[]> {
+    private LogMgr lm;
     private FileMgr fm;
-    private BlockId blk;
+    private int firstblock;
     private Page p;
+    private int blocksize;
+    private int maxchunk;
+    private int chunksize = 0;
+    private int chunkstart; // the log block held in the first slot of the chunk
+    private int slot;       // the slot of the current block in the chunk
     private int currentpos;
-    private int boundary;
 
     /**
-     * Creates an iterator for the records in the log file,
-     * positioned after the last log record.
+     * Creates an iterator for the records in the log,
+     * positioned after the last log record,
+     * which is in the specified log block.
      */
-    public LogIterator(FileMgr fm, BlockId blk) {
-        this.fm = fm;
-        this.blk = blk;
-        byte[] b = new byte[fm.blockSize()];
+    public LogIterator(LogMgr lm, int lastblock, int maxchunk) {
+        this.lm = lm;
+        this.fm = lm.fileMgr();
+        this.firstblock = lm.firstBlock();
+        this.maxchunk = maxchunk;
+        blocksize = fm.blockSize();
+        byte[] b = new byte[maxchunk * blocksize];
         p = new Page(b);
-        moveToBlock(blk);
+        readChunkEndingAt(lastblock);
     }
 
     /**
@@ -38,7 +54,7 @@ class LogIterator implements Iterator<byte[]> {
      * @return true if there is an earlier record
      */
     public boolean hasNext() {
-        return currentpos < fm.blockSize() || blk.number() > 0;
+        return currentpos < blocksize || chunkstart + slot > firstblock;
     }
 
     /**
@@ -50,23 +66,36 @@ class LogIterator implements Iterator<byte[]> {
      * @return the next earliest log record
      */
     public byte[] next() {
-        if (currentpos == fm.blockSize()) {
-            blk = new BlockId(blk.fileName(), blk.number() - 1);
-            moveToBlock(blk);
+        if (currentpos == blocksize) {
+            if (slot > 0)
+                moveToSlot(slot - 1);
+            else
+                readChunkEndingAt(chunkstart - 1);
         }
-        byte[] rec = p.getBytes(currentpos);
+        byte[] rec = p.getBytes(slot * blocksize + currentpos);
         currentpos += Integer.BYTES + rec.length;
         return rec;
     }
 
     /**
-     * Moves to the specified log block
-     * and positions it at the first record in that block
+     * Reads the chunk of blocks that ends at the specified block,
+     * and positions the iterator at the first record of that block
      * (i.e., the most recent one).
      */
-    private void moveToBlock(BlockId blk) {
-        fm.read(blk, p);
-        boundary = p.getInt(0);
-        currentpos = boundary;
+    private void readChunkEndingAt(int blknum) {
+        chunksize = Math.min(Math.max(1, 2 * chunksize), maxchunk);
+        int numblocks = Math.min(chunksize, blknum - lm.segmentStart(blknum) + 1);
+        chunkstart = blknum - numblocks + 1;
+        fm.read(lm.logBlock(chunkstart), p, 0, numblocks);
+        moveToSlot(numblocks - 1);
+    }
+
+    /**
+     * Moves to the specified block of the chunk
+     * and positions it at the first record in that block.
+     */
+    private void moveToSlot(int slot) {
+        this.slot = slot;
+        currentpos = p.getInt(slot * blocksize);
     }
 }
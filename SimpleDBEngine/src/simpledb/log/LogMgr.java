@@ -1,5 +1,6 @@
 package simpledb.log;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import simpledb.file.BlockId;
@@ -11,19 +12,46 @@ import simpledb.file.Page;
  * writing log records into a log file. The tail of
  * the log is kept in a bytebuffer, which is flushed
  * to disk when needed.
+ * The tail buffer holds several consecutive log blocks.
+ * Filling a block simply moves on to the next one in the buffer;
+ * the buffer is written to the log file, in a single sequential
+ * write, only when it is full or when the log is flushed.
+ * In group-commit mode, committing transactions do not
+ * write the log themselves: a flusher thread writes it once
+ * for every batch of commits, or once per time window.
+ * <p>
+ * The log is stored in a sequence of segment files of a fixed
+ * number of blocks, named after the log file and numbered from 0.
+ * Log blocks are numbered across segments, so that
+ * segments that are no longer needed can be deleted
+ * from the front of the log by {@link #truncate(int)}.
+ * A log written by an earlier version, as a single file
+ * having the name of the log file, is split into segments
+ * when the manager is created.
  *
  * @author Edward Sciore
  */
 public class LogMgr {
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 24; // in bytes
     private FileMgr fm;
     private String logfile;
     private Page logpage;
-    private BlockId currentblk;
+    private int blocksize;
+    private int tailblocks;
+    private int segblocks;
+    private int firstblock;    // the first log block that has not been truncated
+    private int tailstart;     // the log block held in the first slot of the tail
+    private int currentslot;   // the slot of the block receiving records
+    private int firstunsaved;  // the first slot that needs to be written
     private int latestLSN = 0;
     private int lastSavedLSN = 0;
+    private long groupWindow = 0;
+    private int maxBatch = 1;
+    private int waitingCommits = 0;
 
     /**
-     * Creates the manager for the specified log file.
+     * Creates the manager for the specified log file,
+     * having a tail buffer of a single block.
      * If the log file does not yet exist, it is created
      * with an empty first block.
      *
@@ -31,19 +59,87 @@ public class LogMgr {
      * @param logfile the name of the log file
      */
     public LogMgr(FileMgr fm, String logfile) {
+        this(fm, logfile, fm.blockSize(), DEFAULT_SEGMENT_SIZE, 0, 1);
+    }
+
+    /**
+     * Creates the manager for the specified log file,
+     * having a tail buffer of the specified size.
+     * If the group window is positive, the manager runs in
+     * group-commit mode: a batch of waiting commits is flushed
+     * as soon as it reaches the maximum batch size, or when
+     * the window that began with its first commit has elapsed.
+     *
+     * @param FileMgr     the file manager
+     * @param logfile     the name of the log file
+     * @param buffsize    the size of the tail buffer, in bytes
+     * @param segsize     the size of a log segment, in bytes;
+     *                    it must not change once the log exists
+     * @param groupWindow the batch window, in milliseconds; 0 disables group commit
+     * @param maxBatch    the maximum number of commits in a batch
+     */
+    public LogMgr(FileMgr fm, String logfile, int buffsize, int segsize, long groupWindow, int maxBatch) {
         this.fm = fm;
         this.logfile = logfile;
-        byte[] b = new byte[fm.blockSize()];
+        blocksize = fm.blockSize();
+        tailblocks = Math.max(1, buffsize / blocksize);
+        segblocks = Math.max(1, segsize / blocksize);
+        byte[] b = new byte[tailblocks * blocksize];
         logpage = new Page(b);
-        int logsize = fm.length(logfile);
-        if (logsize == 0)
-            currentblk = appendNewBlock();
-        else {
-            currentblk = new BlockId(logfile, logsize - 1);
-            fm.read(currentblk, logpage);
+
+        if (Arrays.asList(fm.fileNames()).contains(logfile))
+            splitLegacyLog();
+        int firstseg = -1, lastseg = -1;
+        for (String filename : fm.fileNames()) {
+            int seg = segmentNumber(filename);
+            if (seg >= 0 && (firstseg < 0 || seg < firstseg))
+                firstseg = seg;
+            lastseg = Math.max(lastseg, seg);
+        }
+        firstblock = Math.max(0, firstseg) * segblocks;
+        int logsize = (lastseg < 0) ? 0 : lastseg * segblocks + fm.length(segmentName(lastseg));
+        if (logsize == firstblock) {
+            tailstart = firstblock;
+            logpage.setInt(0, blocksize);
+        } else {
+            tailstart = logsize - 1;
+            fm.read(logBlock(tailstart), logpage, 0, 1);
+        }
+        currentslot = firstunsaved = 0;
+
+        this.groupWindow = groupWindow;
+        this.maxBatch = Math.max(1, maxBatch);
+        if (groupWindow > 0) {
+            Thread flusher = new Thread(this::runFlusher, "log flusher");
+            flusher.setDaemon(true);
+            flusher.start();
         }
     }
 
+    /**
+     * Copy the blocks of a log that was written as a single file
+     * into the segments, and delete the file.
+     * The file is deleted only once the segments have been forced,
+     * so if the system crashes during the copy, the copy is
+     * simply repeated at the next startup.
+     * Segments beyond the size of the file cannot come from an
+     * interrupted copy, so the log is then not recoverable.
+     */
+    private void splitLegacyLog() {
+        int size = fm.length(logfile);
+        int lastseg = (size == 0) ? 0 : (size - 1) / segblocks;
+        for (String filename : fm.fileNames())
+            if (segmentNumber(filename) > lastseg)
+                throw new RuntimeException("log file " + logfile + " conflicts with log segment " + filename);
+        for (int blknum = 0; blknum < size; blknum++) {
+            fm.read(new BlockId(logfile, blknum), logpage, 0, 1);
+            fm.write(logBlock(blknum), logpage, 0, 1);
+        }
+        for (int seg = 0; seg * segblocks < size; seg++)
+            fm.force(segmentName(seg));
+        fm.delete(logfile);
+    }
+
     /**
      * Ensures that the log record corresponding to the
      * specified LSN has been written to disk.
@@ -51,14 +147,63 @@ public class LogMgr {
      *
      * @param lsn the LSN of a log record
      */
-    public void flush(int lsn) {
+    public synchronized void flush(int lsn) {
         if (lsn >= lastSavedLSN)
             flush();
     }
 
-    public Iterator<byte[]> iterator() {
+    /**
+     * Ensures that the commit record having the specified LSN
+     * has been written to disk.
+     * In group-commit mode, the method queues the commit and waits
+     * until the flusher thread has written the batch containing it;
+     * otherwise it behaves like {@link #flush(int)}.
+     *
+     * @param lsn the LSN of a commit record
+     */
+    public synchronized void flushCommit(int lsn) {
+        if (groupWindow <= 0) {
+            flush(lsn);
+            return;
+        }
+        try {
+            waitingCommits++;
+            notifyAll(); // start the window, or end it if the batch is full
+            while (lsn > lastSavedLSN)
+                wait();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("interrupted while waiting for commit of lsn " + lsn);
+        }
+    }
+
+    public synchronized Iterator<byte[]> iterator() {
         flush();
-        return new LogIterator(fm, currentblk);
+        return new LogIterator(this, tailstart + currentslot, tailblocks);
+    }
+
+    /**
+     * Returns the number of the log block that is receiving records.
+     * Every record appended later is in this block or a later one.
+     *
+     * @return the number of the current log block
+     */
+    public synchronized int currentBlock() {
+        return tailstart + currentslot;
+    }
+
+    /**
+     * Deletes the segments of the log that hold only
+     * blocks preceding the specified block.
+     * The segment receiving records is never deleted.
+     *
+     * @param blknum the first log block that must be kept
+     */
+    public synchronized void truncate(int blknum) {
+        blknum = Math.min(blknum, tailstart + firstunsaved);
+        while (firstblock + segblocks <= blknum) {
+            fm.delete(segmentName(firstblock / segblocks));
+            firstblock += segblocks;
+        }
     }
 
     /**
@@ -75,37 +220,127 @@ public class LogMgr {
      * @return the LSN of the final value
      */
     public synchronized int append(byte[] logrec) {
-        int boundary = logpage.getInt(0);
+        int blkpos = currentslot * blocksize;
+        int boundary = logpage.getInt(blkpos);
         int recsize = logrec.length;
         int bytesneeded = recsize + Integer.BYTES;
         if (boundary - bytesneeded < Integer.BYTES) { // the log record doesn't fit,
-            flush();        // so move to the next block.
-            currentblk = appendNewBlock();
-            boundary = logpage.getInt(0);
+            moveToNextBlock();                         // so move to the next block.
+            blkpos = currentslot * blocksize;
+            boundary = logpage.getInt(blkpos);
         }
         int recpos = boundary - bytesneeded;
 
-        logpage.setBytes(recpos, logrec);
-        logpage.setInt(0, recpos); // the new boundary
+        logpage.setBytes(blkpos + recpos, logrec);
+        logpage.setInt(blkpos, recpos); // the new boundary
         latestLSN += 1;
         return latestLSN;
     }
 
     /**
-     * Initialize the bytebuffer and append it to the log file.
+     * Start a new, empty block in the next slot of the tail.
+     * If the tail is full, it is first written to disk,
+     * and the new block goes into the first slot.
+     */
+    private void moveToNextBlock() {
+        if (currentslot == tailblocks - 1) {
+            flush();
+            tailstart += tailblocks;
+            currentslot = firstunsaved = 0;
+        } else
+            currentslot++;
+        logpage.setInt(currentslot * blocksize, blocksize);
+    }
+
+    /**
+     * The body of the flusher thread.
+     * It waits for a commit, then for the batch to fill
+     * or the window to elapse, flushes the log,
+     * and wakes every commit in the batch.
      */
-    private BlockId appendNewBlock() {
-        BlockId blk = fm.append(logfile);
-        logpage.setInt(0, fm.blockSize());
-        fm.write(blk, logpage);
-        return blk;
+    private synchronized void runFlusher() {
+        try {
+            while (true) {
+                while (waitingCommits == 0)
+                    wait();
+                long deadline = System.currentTimeMillis() + groupWindow;
+                long remaining = groupWindow;
+                while (waitingCommits < maxBatch && remaining > 0) {
+                    wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                flush();
+                waitingCommits = 0;
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            // the flusher only stops when the system does
+        }
     }
 
     /**
-     * Write the buffer to the log file.
+     * Write the unsaved blocks of the tail to the log
+     * and force them to disk.
+     * The blocks are written with one write per segment they belong to.
+     * The current block stays unsaved, since it will
+     * receive more records.
      */
     private void flush() {
-        fm.write(currentblk, logpage);
+        int slot = firstunsaved;
+        while (slot <= currentslot) {
+            int blknum = tailstart + slot;
+            int numblocks = Math.min(currentslot - slot + 1, segblocks - blknum % segblocks);
+            BlockId blk = logBlock(blknum);
+            fm.write(blk, logpage, slot * blocksize, numblocks);
+            fm.force(blk.fileName());
+            slot += numblocks;
+        }
+        firstunsaved = currentslot;
         lastSavedLSN = latestLSN;
     }
+
+    /**
+     * Returns the first log block that has not been truncated.
+     */
+    int firstBlock() {
+        return firstblock;
+    }
+
+    /**
+     * Returns the number of the first block of the segment
+     * holding the specified log block.
+     */
+    int segmentStart(int blknum) {
+        return blknum - blknum % segblocks;
+    }
+
+    /**
+     * Returns the block of a segment file that holds
+     * the specified log block.
+     */
+    BlockId logBlock(int blknum) {
+        return new BlockId(segmentName(blknum / segblocks), blknum % segblocks);
+    }
+
+    FileMgr fileMgr() {
+        return fm;
+    }
+
+    private String segmentName(int seg) {
+        return logfile + "." + seg;
+    }
+
+    /**
+     * Returns the segment number of the specified file,
+     * or -1 if it is not a segment of this log.
+     */
+    private int segmentNumber(String filename) {
+        String prefix = logfile + ".";
+        if (!filename.startsWith(prefix))
+            return -1;
+        String suffix = filename.substring(prefix.length());
+        if (suffix.isEmpty() || !suffix.chars().allMatch(Character::isDigit))
+            return -1;
+        return Integer.parseInt(suffix);
+    }
 }
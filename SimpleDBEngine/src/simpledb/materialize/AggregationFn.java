@@ -1,5 +1,6 @@
 package simpledb.materialize;
 
+import simpledb.query.Batch;
 import simpledb.query.Constant;
 import simpledb.query.Scan;
 
@@ -27,6 +28,18 @@ public interface AggregationFn {
      */
     void processNext(Scan s);
 
+    /**
+     * Use the selected rows of the batch between the specified
+     * positions of its selection vector as the next records in
+     * the group, or, if first is true, as its first records.
+     *
+     * @param b     the batch to aggregate over
+     * @param start the position of the first row
+     * @param end   the position after the last row
+     * @param first true if the rows start the group
+     */
+    void processBatch(Batch b, int start, int end, boolean first);
+
     /**
      * Return the name of the new aggregation field.
      *
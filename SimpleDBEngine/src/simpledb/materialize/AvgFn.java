@@ -1,5 +1,6 @@
 package simpledb.materialize;
 
+import simpledb.query.Batch;
 import simpledb.query.Constant;
 import simpledb.query.Scan;
 
@@ -46,6 +47,22 @@ public class AvgFn implements AggregationFn {
         count++;
     }
 
+    /**
+     * Add the field values of the rows to the sum,
+     * and the number of rows to the count.
+     *
+     * @see simpledb.materialize.AggregationFn#processBatch(Batch, int, int, boolean)
+     */
+    public void processBatch(Batch b, int start, int end, boolean first) {
+        int[] vals = b.ints(b.fieldIndex(fldname));
+        int[] sel = b.selection();
+        int total = first ? 0 : sum;
+        for (int i = start; i < end; i++)
+            total += vals[sel[i]];
+        sum = total;
+        count = (first ? 0 : count) + (end - start);
+    }
+
     /**
      * Return the field's name, prepended by "avgof".
      *
@@ -61,7 +78,7 @@ public class AvgFn implements AggregationFn {
      * @see simpledb.materialize.AggregationFn#value()
      */
     public Constant value() {
-        return new Constant(sum / count);
+        return Constant.of(sum / count);
     }
 
     public String getField() {
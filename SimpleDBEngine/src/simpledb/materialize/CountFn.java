@@ -1,5 +1,6 @@
 package simpledb.materialize;
 
+import simpledb.query.Batch;
 import simpledb.query.Constant;
 import simpledb.query.Scan;
 
@@ -45,6 +46,15 @@ public class CountFn implements AggregationFn {
         count++;
     }
 
+    /**
+     * Add the number of rows to the count.
+     *
+     * @see simpledb.materialize.AggregationFn#processBatch(Batch, int, int, boolean)
+     */
+    public void processBatch(Batch b, int start, int end, boolean first) {
+        count = (first ? 0 : count) + (end - start);
+    }
+
     /**
      * Return the field's name, prepended by "countof".
      *
@@ -60,7 +70,7 @@ public class CountFn implements AggregationFn {
      * @see simpledb.materialize.AggregationFn#value()
      */
     public Constant value() {
-        return new Constant(count);
+        return Constant.of(count);
     }
 
     public String getField() {
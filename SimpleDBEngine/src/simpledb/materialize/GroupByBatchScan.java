@@ -0,0 +1,142 @@
+package simpledb.materialize;
+
+import java.util.List;
+
+import simpledb.query.Batch;
+import simpledb.query.BatchScan;
+import simpledb.record.Schema;
+
+/**
+ * The batch scan class for the <i>groupby</i> operator.
+ * The underlying batches are sorted on the group fields,
+ * so each group is a run of consecutive rows. The run of a
+ * group within a batch is found by comparing the group
+ * columns with the group's key, and is passed to the
+ * aggregation functions in a single call; a group may
+ * continue into the next batch.
+ * Each output row holds the group fields and then the
+ * aggregation values.
+ *
+ * @author Edward Sciore
+ */
+public class GroupByBatchScan implements BatchScan {
+    private BatchScan s;
+    private List<AggregationFn> aggfns;
+    private Batch output, input;
+    private int pos;
+    private boolean ingroup, done;
+    private int[] groupcols, outcols;
+    private int[] keyints;
+    private String[] keystrings;
+
+    /**
+     * Create a groupby batch scan, given a grouped batch scan.
+     *
+     * @param s           the grouped batch scan
+     * @param groupfields the group fields
+     * @param aggfns      the aggregation functions
+     * @param sch         the schema of the groupby
+     */
+    public GroupByBatchScan(BatchScan s, List<String> groupfields, List<AggregationFn> aggfns, Schema sch) {
+        this.s = s;
+        this.aggfns = aggfns;
+        output = new Batch(sch);
+        groupcols = new int[groupfields.size()];
+        for (int i = 0; i < groupcols.length; i++)
+            groupcols[i] = s.fieldIndex(groupfields.get(i));
+        outcols = new int[groupcols.length + aggfns.size()];
+        for (int i = 0; i < groupcols.length; i++)
+            outcols[i] = output.fieldIndex(groupfields.get(i));
+        for (int i = 0; i < aggfns.size(); i++)
+            outcols[groupcols.length + i] = output.fieldIndex(aggfns.get(i).fieldName());
+        keyints = new int[groupcols.length];
+        keystrings = new String[groupcols.length];
+        beforeFirst();
+    }
+
+    public void beforeFirst() {
+        s.beforeFirst();
+        input = null;
+        ingroup = false;
+        done = false;
+    }
+
+    public Batch nextBatch() {
+        int n = 0;
+        while (!done && n < Batch.CAPACITY) {
+            if (input == null || pos >= input.selected()) {
+                input = s.nextBatch();
+                pos = 0;
+                if (input == null) {
+                    done = true;
+                    if (ingroup)
+                        emit(n++);
+                    break;
+                }
+            }
+            boolean first = !ingroup;
+            if (first) {
+                saveKey(input.selection()[pos]);
+                ingroup = true;
+            }
+            int end = first ? pos + 1 : pos;
+            while (end < input.selected() && matchesKey(input.selection()[end]))
+                end++;
+            if (end > pos)
+                for (AggregationFn fn : aggfns)
+                    fn.processBatch(input, pos, end, first);
+            pos = end;
+            if (end < input.selected()) {
+                emit(n++);
+                ingroup = false;
+            }
+        }
+        if (n == 0)
+            return null;
+        output.setSize(n);
+        return output;
+    }
+
+    public int fieldIndex(String fldname) {
+        return output.fieldIndex(fldname);
+    }
+
+    public boolean hasField(String fldname) {
+        return output.schema().hasField(fldname);
+    }
+
+    public void close() {
+        s.close();
+    }
+
+    private void saveKey(int row) {
+        for (int i = 0; i < groupcols.length; i++) {
+            if (input.isInt(groupcols[i]))
+                keyints[i] = input.ints(groupcols[i])[row];
+            else
+                keystrings[i] = input.strings(groupcols[i])[row];
+        }
+    }
+
+    private boolean matchesKey(int row) {
+        for (int i = 0; i < groupcols.length; i++) {
+            int col = groupcols[i];
+            if (input.isInt(col) ? input.ints(col)[row] != keyints[i]
+                    : !input.strings(col)[row].equals(keystrings[i]))
+                return false;
+        }
+        return true;
+    }
+
+    private void emit(int n) {
+        for (int i = 0; i < groupcols.length; i++) {
+            int col = outcols[i];
+            if (output.isInt(col))
+                output.ints(col)[n] = keyints[i];
+            else
+                output.strings(col)[n] = keystrings[i];
+        }
+        for (int i = 0; i < aggfns.size(); i++)
+            output.setVal(outcols[groupcols.length + i], n, aggfns.get(i).value());
+    }
+}
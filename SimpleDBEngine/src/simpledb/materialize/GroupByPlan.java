@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import simpledb.plan.Plan;
+import simpledb.query.BatchScan;
 import simpledb.query.OrderField;
 import simpledb.query.Scan;
 import simpledb.record.Schema;
@@ -63,6 +64,17 @@ public class GroupByPlan implements Plan {
         return new GroupByScan(s, groupfields, aggfns);
     }
 
+    /**
+     * This method opens a batch scan of the sort plan,
+     * and returns a groupby batch scan of it.
+     *
+     * @see simpledb.plan.Plan#openBatch()
+     */
+    public BatchScan openBatch() {
+        BatchScan s = p.openBatch();
+        return new GroupByBatchScan(s, groupfields, aggfns, sch);
+    }
+
     /**
      * Return the number of blocks required to
      * compute the aggregation,
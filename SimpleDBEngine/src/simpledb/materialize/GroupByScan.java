@@ -3,6 +3,7 @@ package simpledb.materialize;
 import java.util.List;
 
 import simpledb.query.Constant;
+import simpledb.query.MutableConstant;
 import simpledb.query.Scan;
 
 /**
@@ -13,6 +14,8 @@ import simpledb.query.Scan;
 public class GroupByScan implements Scan {
     private Scan s;
     private List<String> groupfields;
+    private int[] groupindexes;
+    private MutableConstant[] probes;
     private List<AggregationFn> aggfns;
     private GroupValue groupval;
     private boolean moregroups;
@@ -28,6 +31,12 @@ public class GroupByScan implements Scan {
         this.s = s;
         this.groupfields = groupfields;
         this.aggfns = aggfns;
+        groupindexes = new int[groupfields.size()];
+        for (int i = 0; i < groupindexes.length; i++)
+            groupindexes[i] = s.fieldIndex(groupfields.get(i));
+        probes = new MutableConstant[groupindexes.length];
+        for (int i = 0; i < probes.length; i++)
+            probes[i] = new MutableConstant();
         beforeFirst();
     }
 
@@ -62,10 +71,9 @@ public class GroupByScan implements Scan {
             return false;
         for (AggregationFn fn : aggfns)
             fn.processFirst(s);
-        groupval = new GroupValue(s, groupfields);
+        groupval = new GroupValue(s, groupfields, groupindexes);
         while (moregroups = s.next()) {
-            GroupValue gv = new GroupValue(s, groupfields);
-            if (!groupval.equals(gv))
+            if (!groupval.matches(s, groupindexes, probes))
                 break;
             for (AggregationFn fn : aggfns)
                 fn.processNext(s);
@@ -126,6 +134,37 @@ public class GroupByScan implements Scan {
         return getVal(fldname).asString();
     }
 
+    /**
+     * Return the index of the field: the grouping fields
+     * come first, followed by the aggregation functions.
+     *
+     * @see simpledb.query.Scan#fieldIndex(java.lang.String)
+     */
+    public int fieldIndex(String fldname) {
+        int i = groupfields.indexOf(fldname);
+        if (i >= 0)
+            return i;
+        for (i = 0; i < aggfns.size(); i++)
+            if (aggfns.get(i).fieldName().equals(fldname))
+                return groupfields.size() + i;
+        throw new RuntimeException("field " + fldname + " not found.");
+    }
+
+    public Constant getVal(int fldindex) {
+        if (fldindex < groupfields.size())
+            return groupval.getVal(fldindex);
+        else
+            return aggfns.get(fldindex - groupfields.size()).value();
+    }
+
+    public int getInt(int fldindex) {
+        return getVal(fldindex).asInt();
+    }
+
+    public String getString(int fldindex) {
+        return getVal(fldindex).asString();
+    }
+
     /**
      * Return true if the specified field is either a
      * grouping field or created by an aggregation function.
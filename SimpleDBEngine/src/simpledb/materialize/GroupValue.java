@@ -1,10 +1,10 @@
 package simpledb.materialize;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import simpledb.query.Constant;
+import simpledb.query.MutableConstant;
 import simpledb.query.Scan;
 
 /**
@@ -14,7 +14,8 @@ import simpledb.query.Scan;
  * @author Edward Sciore
  */
 public class GroupValue {
-    private Map<String, Constant> vals = new HashMap<>();
+    private List<String> fields;
+    private Constant[] vals;
 
     /**
      * Create a new group value, given the specified scan
@@ -26,9 +27,42 @@ public class GroupValue {
      * @param fields the list of fields
      */
     public GroupValue(Scan s, List<String> fields) {
-        vals = new HashMap<String, Constant>();
-        for (String fldname : fields)
-            vals.put(fldname, s.getVal(fldname));
+        this.fields = fields;
+        vals = new Constant[fields.size()];
+        for (int i = 0; i < vals.length; i++)
+            vals[i] = s.getVal(fields.get(i));
+    }
+
+    /**
+     * Create a new group value, given the specified scan,
+     * list of fields, and the index of each field in the scan.
+     *
+     * @param s          a scan
+     * @param fields     the list of fields
+     * @param fldindexes the index of each field in the scan
+     */
+    public GroupValue(Scan s, List<String> fields, int[] fldindexes) {
+        this.fields = fields;
+        vals = new Constant[fields.size()];
+        for (int i = 0; i < vals.length; i++)
+            vals[i] = s.getVal(fldindexes[i]);
+    }
+
+    /**
+     * Return true if the current record of the scan has the
+     * values of this group, without creating a group value
+     * for the record.
+     *
+     * @param s          a scan
+     * @param fldindexes the index of each field in the scan
+     * @param probes     a value holder for each field
+     * @return true if the record belongs to the group
+     */
+    public boolean matches(Scan s, int[] fldindexes, MutableConstant[] probes) {
+        for (int i = 0; i < vals.length; i++)
+            if (!probes[i].load(s, fldindexes[i]).equals(vals[i]))
+                return false;
+        return true;
     }
 
     /**
@@ -38,7 +72,19 @@ public class GroupValue {
      * @return the value of the field in the group
      */
     public Constant getVal(String fldname) {
-        return vals.get(fldname);
+        int i = fields.indexOf(fldname);
+        return (i < 0) ? null : vals[i];
+    }
+
+    /**
+     * Return the value of the field having the specified
+     * position in the list of fields.
+     *
+     * @param i the position of a field
+     * @return the value of the field in the group
+     */
+    public Constant getVal(int i) {
+        return vals[i];
     }
 
     /**
@@ -49,13 +95,7 @@ public class GroupValue {
      */
     public boolean equals(Object obj) {
         GroupValue gv = (GroupValue) obj;
-        for (String fldname : vals.keySet()) {
-            Constant v1 = vals.get(fldname);
-            Constant v2 = gv.getVal(fldname);
-            if (!v1.equals(v2))
-                return false;
-        }
-        return true;
+        return Arrays.equals(vals, gv.vals);
     }
 
     /**
@@ -66,7 +106,7 @@ public class GroupValue {
      */
     public int hashCode() {
         int hashval = 0;
-        for (Constant c : vals.values())
+        for (Constant c : vals)
             hashval += c.hashCode();
         return hashval;
     }
@@ -0,0 +1,208 @@
+package simpledb.materialize;
+
+import static java.sql.Types.INTEGER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import simpledb.query.Batch;
+import simpledb.query.BatchScan;
+import simpledb.query.Constant;
+import simpledb.query.MutableConstant;
+import simpledb.record.Schema;
+import simpledb.record.TableBatchScan;
+import simpledb.tx.Transaction;
+
+/**
+ * The batch scan class for the <i>hashjoin</i> operator.
+ * The partitions are joined in turn. The records of a
+ * smaller partition are read into columns, and hashed on
+ * the join field into chains of row numbers; each batch
+ * of the matching larger partition then probes the chains,
+ * and the joined rows are copied into the output batch.
+ *
+ * @author Edward Sciore
+ */
+public class HashJoinBatchScan implements BatchScan {
+    private Transaction tx;
+    private Map<Integer, TempTable> smallPartitions, largePartitions;
+    private String smallField, largeField;
+    private List<Integer> partitions;
+    private int partitionIndex;
+    private Batch output;
+
+    // for each output column: its column in the small or the large batches
+    private boolean[] fromSmall;
+    private int[] srccols;
+
+    // the rows of the current smaller partition, by column
+    private Schema smallSchema;
+    private int[][] smallInts;
+    private String[][] smallStrings;
+    private int smallRows;
+    private Map<Constant, Integer> heads = new HashMap<>();
+    private int[] next;
+
+    // the probe state, kept between calls to nextBatch
+    private BatchScan largeScan;
+    private Batch probeBatch;
+    private int probePos, chain = -1;
+    private int largeCol;
+    private MutableConstant probe = new MutableConstant();
+
+    /**
+     * Creates a hashjoin batch scan of the specified partitions.
+     *
+     * @param tx              the calling transaction
+     * @param smallPartitions the partitions of the smaller table
+     * @param smallField      the join field of the smaller table
+     * @param largePartitions the partitions of the larger table
+     * @param largeField      the join field of the larger table
+     * @param sch             the schema of the join
+     */
+    public HashJoinBatchScan(Transaction tx, Map<Integer, TempTable> smallPartitions, String smallField,
+                             Map<Integer, TempTable> largePartitions, String largeField, Schema sch) {
+        this.tx = tx;
+        this.smallPartitions = smallPartitions;
+        this.smallField = smallField;
+        this.largePartitions = largePartitions;
+        this.largeField = largeField;
+        partitions = new ArrayList<>(smallPartitions.keySet());
+        output = new Batch(sch);
+        smallSchema = smallPartitions.get(partitions.get(0)).getLayout().schema();
+        Schema largeSchema = largePartitions.get(partitions.get(0)).getLayout().schema();
+        List<String> fields = sch.fields();
+        fromSmall = new boolean[fields.size()];
+        srccols = new int[fields.size()];
+        for (int col = 0; col < srccols.length; col++) {
+            String fldname = fields.get(col);
+            fromSmall[col] = !largeSchema.hasField(fldname);
+            srccols[col] = fromSmall[col] ? smallSchema.index(fldname) : largeSchema.index(fldname);
+        }
+        int numcols = smallSchema.fields().size();
+        smallInts = new int[numcols][];
+        smallStrings = new String[numcols][];
+        beforeFirst();
+    }
+
+    public void beforeFirst() {
+        close();
+        partitionIndex = -1;
+        largeScan = null;
+        probeBatch = null;
+        chain = -1;
+    }
+
+    public Batch nextBatch() {
+        int n = 0;
+        while (n < Batch.CAPACITY) {
+            if (chain >= 0) {
+                copyRow(n++);
+                chain = next[chain];
+                continue;
+            }
+            if (probeBatch == null || ++probePos >= probeBatch.selected()) {
+                probeBatch = (largeScan == null) ? null : largeScan.nextBatch();
+                probePos = -1;
+                if (probeBatch == null && !nextPartition())
+                    break;
+                continue;
+            }
+            probe.load(probeBatch, largeCol, probeBatch.selection()[probePos]);
+            Integer head = heads.get(probe);
+            chain = (head == null) ? -1 : head;
+        }
+        if (n == 0)
+            return null;
+        output.setSize(n);
+        return output;
+    }
+
+    public int fieldIndex(String fldname) {
+        return output.fieldIndex(fldname);
+    }
+
+    public boolean hasField(String fldname) {
+        return output.schema().hasField(fldname);
+    }
+
+    public void close() {
+        if (largeScan != null)
+            largeScan.close();
+        largeScan = null;
+    }
+
+    /**
+     * Move to the next partition, hash its smaller table,
+     * and open a scan of its larger table.
+     * Partitions whose smaller table is empty are skipped.
+     *
+     * @return false if there are no more partitions
+     */
+    private boolean nextPartition() {
+        close();
+        while (++partitionIndex < partitions.size()) {
+            int i = partitions.get(partitionIndex);
+            if (build(smallPartitions.get(i)) > 0) {
+                TempTable large = largePartitions.get(i);
+                largeScan = new TableBatchScan(tx, large.tableName(), large.getLayout());
+                largeCol = largeScan.fieldIndex(largeField);
+                probeBatch = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int build(TempTable small) {
+        heads.clear();
+        smallRows = 0;
+        BatchScan s = new TableBatchScan(tx, small.tableName(), small.getLayout());
+        int keycol = s.fieldIndex(smallField);
+        Batch b = s.nextBatch();
+        while (b != null) {
+            ensureCapacity(smallRows + b.size());
+            for (int row = 0; row < b.size(); row++) {
+                for (int col = 0; col < smallInts.length; col++) {
+                    if (b.isInt(col))
+                        smallInts[col][smallRows] = b.ints(col)[row];
+                    else
+                        smallStrings[col][smallRows] = b.strings(col)[row];
+                }
+                Integer head = heads.put(b.getVal(keycol, row), smallRows);
+                next[smallRows] = (head == null) ? -1 : head;
+                smallRows++;
+            }
+            b = s.nextBatch();
+        }
+        s.close();
+        return smallRows;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (next != null && next.length >= rows)
+            return;
+        int capacity = Math.max(rows, (next == null) ? Batch.CAPACITY : 2 * next.length);
+        next = (next == null) ? new int[capacity] : Arrays.copyOf(next, capacity);
+        for (int col = 0; col < smallInts.length; col++) {
+            if (smallSchema.type(col) == INTEGER)
+                smallInts[col] = (smallInts[col] == null) ? new int[capacity] : Arrays.copyOf(smallInts[col], capacity);
+            else
+                smallStrings[col] = (smallStrings[col] == null) ? new String[capacity] : Arrays.copyOf(smallStrings[col], capacity);
+        }
+    }
+
+    private void copyRow(int n) {
+        int largeRow = probeBatch.selection()[probePos];
+        for (int col = 0; col < srccols.length; col++) {
+            int src = srccols[col];
+            if (output.isInt(col))
+                output.ints(col)[n] = fromSmall[col] ? smallInts[src][chain] : probeBatch.ints(src)[largeRow];
+            else
+                output.strings(col)[n] = fromSmall[col] ? smallStrings[src][chain] : probeBatch.strings(src)[largeRow];
+        }
+    }
+}
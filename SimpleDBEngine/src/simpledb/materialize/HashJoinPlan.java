@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 
 import simpledb.plan.Plan;
+import simpledb.query.BatchScan;
 import simpledb.query.Constant;
 import simpledb.query.Scan;
 import simpledb.query.UpdateScan;
@@ -63,7 +64,27 @@ public class HashJoinPlan implements Plan {
     public Scan open() {
         Map<Integer, TempTable> smallerPartitions = getPartitions(smallPlan.open(), smallPlan.schema(), smallField, 0);
         Map<Integer, TempTable> largerPartitions = getPartitions(largePlan.open(), largePlan.schema(), largeField, 0);
+        splitLargePartitions(smallerPartitions, largerPartitions);
+        return new HashJoinScan(smallerPartitions,smallField, largerPartitions,
+            largeField);
+    }
+
+    /**
+     * Partitions the two tables the same way as open, and
+     * returns a hashjoin batch scan of the partitions.
+     *
+     * @see simpledb.plan.Plan#openBatch()
+     */
+    public BatchScan openBatch() {
+        Map<Integer, TempTable> smallerPartitions = getPartitions(smallPlan.open(), smallPlan.schema(), smallField, 0);
+        Map<Integer, TempTable> largerPartitions = getPartitions(largePlan.open(), largePlan.schema(), largeField, 0);
+        splitLargePartitions(smallerPartitions, largerPartitions);
+        return new HashJoinBatchScan(tx, smallerPartitions, smallField, largerPartitions,
+            largeField, sch);
+    }
 
+    private void splitLargePartitions(Map<Integer, TempTable> smallerPartitions,
+                                      Map<Integer, TempTable> largerPartitions) {
         List<Integer> toSplit;
 
         // split into more partitions if any partition too large
@@ -99,9 +120,6 @@ public class HashJoinPlan implements Plan {
                 largerPartitions.remove(i);
             }
         }
-
-        return new HashJoinScan(smallerPartitions,smallField, largerPartitions,
-            largeField);
     }
 
     private Map<Integer, TempTable> getPartitions(Scan s, Schema sch, String joinField, int start) {
@@ -114,13 +132,22 @@ public class HashJoinPlan implements Plan {
             ttList.put(i, new TempTable(tx, sch));
             scanList.put(i, (UpdateScan) ttList.get(i).open());
         }
+        // the partitions share a layout, so a field has the same index in each
+        List<String> fields = sch.fields();
+        int[] srcindexes = new int[fields.size()];
+        int[] destindexes = new int[fields.size()];
+        for (int i = 0; i < srcindexes.length; i++) {
+            srcindexes[i] = s.fieldIndex(fields.get(i));
+            destindexes[i] = scanList.get(start).fieldIndex(fields.get(i));
+        }
+        int joinIndex = s.fieldIndex(joinField);
         while (s.next()) {
             UpdateScan dest = scanList.
-                get((s.getVal(joinField).
+                get((s.getVal(joinIndex).
                     hashCode() % partitions) + start);
             dest.insert();
-            for (String fldname : sch.fields()) {
-                dest.setVal(fldname, s.getVal(fldname));
+            for (int i = 0; i < srcindexes.length; i++) {
+                dest.setVal(destindexes[i], s.getVal(srcindexes[i]));
             }
         }
 
@@ -11,6 +11,8 @@ import java.util.Queue;
 import javax.sound.sampled.Line;
 
 import simpledb.query.Constant;
+import simpledb.query.FieldSources;
+import simpledb.query.MutableConstant;
 import simpledb.query.Scan;
 
 /*
@@ -30,7 +32,12 @@ public class HashJoinScan implements Scan {
     private boolean allPartitionsClosed;
     private int keyIterator = 0;
 
-    private Map<Constant, List<Map<String, Constant>>> hashTable;
+    private List<String> smallFields;
+    private int largeIndex;
+    private FieldSources sources = new FieldSources();
+    private Map<Constant, List<Constant[]>> hashTable;
+    private List<Constant[]> matches;
+    private MutableConstant probe = new MutableConstant();
     private boolean isEmpty;
     Queue<Integer> queue = new LinkedList<>();
 
@@ -51,6 +58,7 @@ public class HashJoinScan implements Scan {
         this.numPartitions = smallPartitions.size();
         this.smallPartitions = smallPartitions;
         this.largePartitions = largePartitions;
+        smallFields = smallPartitions.get(0).getLayout().schema().fields();
         for (Integer i : smallPartitions.keySet()) {
             queue.offer(i);
         }
@@ -71,6 +79,7 @@ public class HashJoinScan implements Scan {
 
         allPartitionsClosed = false;
         s2 = largePartitions.get(currPartition).open();
+        largeIndex = s2.fieldIndex(largeField);
         s2.beforeFirst();
         if (!s2.next()) {
             isEmpty = !nextPartition();
@@ -82,17 +91,20 @@ public class HashJoinScan implements Scan {
         Scan s1 = smallPartitions.get(currPartition).open();
         s1.beforeFirst();
 
+        int smallIndex = s1.fieldIndex(smallField);
         hashTable = new HashMap<>();
         while (s1.next()) {
-            if (!hashTable.containsKey(s1.getVal(smallField))) {
-                hashTable.put(s1.getVal(smallField), new ArrayList<>());
+            Constant key = s1.getVal(smallIndex);
+            if (!hashTable.containsKey(key)) {
+                hashTable.put(key, new ArrayList<>());
             }
 
-            Map<String, Constant> row = new HashMap<>();
-            for (String field : smallPartitions.get(0).getLayout().schema().fields()) {
-                row.put(field, s1.getVal(field));
+            // the index of a field of a table scan is its position in the schema
+            Constant[] row = new Constant[smallFields.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = s1.getVal(i);
             }
-            hashTable.get(s1.getVal(smallField)).add(row);
+            hashTable.get(key).add(row);
         }
         s1.close();
 
@@ -133,14 +145,17 @@ public class HashJoinScan implements Scan {
         }
         while (true) {
             //first check if there are duplicate key values in our hashtable
-            if (hashTable.keySet().contains(s2.getVal(largeField)) &&
-                keyIterator < hashTable.get(s2.getVal(largeField)).size()) {
+            List<Constant[]> rows = hashTable.get(probe.load(s2, largeIndex));
+            if (rows != null && keyIterator < rows.size()) {
                 keyIterator++;
+                matches = rows;
                 return true;
             }
             while (s2.next()) {
-                if (hashTable.keySet().contains(s2.getVal(largeField))) {
+                rows = hashTable.get(probe.load(s2, largeIndex));
+                if (rows != null) {
                     keyIterator = 1;
+                    matches = rows;
                     return true;
                 }
             }
@@ -158,8 +173,7 @@ public class HashJoinScan implements Scan {
         if (s2.hasField(fldname))
             return s2.getInt(fldname);
         else {
-            return hashTable.get(s2.getVal(largeField))
-                .get(keyIterator - 1).get(fldname).asInt();
+            return currentRow()[smallFields.indexOf(fldname)].asInt();
         }
     }
 
@@ -172,7 +186,7 @@ public class HashJoinScan implements Scan {
         if (s2.hasField(fldname))
             return s2.getVal(fldname);
         else {
-            return hashTable.get(s2.getVal(largeField)).get(keyIterator - 1).get(fldname);
+            return currentRow()[smallFields.indexOf(fldname)];
         }
     }
 
@@ -185,8 +199,7 @@ public class HashJoinScan implements Scan {
         if (s2.hasField(fldname))
             return s2.getString(fldname);
         else {
-            return hashTable.get(s2.getVal(largeField)).
-                get(keyIterator - 1).get(fldname).asString();
+            return currentRow()[smallFields.indexOf(fldname)].asString();
         }
     }
 
@@ -196,9 +209,49 @@ public class HashJoinScan implements Scan {
      * @see Scan#hasField(String)
      */
     public boolean hasField(String fldname) {
-        return s2.hasField(fldname) ||
-            hashTable.get(s2.getVal(largeField)).
-                get(keyIterator - 1).keySet().contains(fldname);
+        return s2.hasField(fldname) || smallFields.contains(fldname);
+    }
+
+    /**
+     * Resolves the field to the current record of the larger
+     * table, or else to the matching row of the smaller one.
+     * The partitions of a table share a layout, so the
+     * field has the same index in each partition.
+     *
+     * @see Scan#fieldIndex(String)
+     */
+    public int fieldIndex(String fldname) {
+        if (s2.hasField(fldname))
+            return sources.add(false, s2.fieldIndex(fldname));
+        int i = smallFields.indexOf(fldname);
+        if (i < 0)
+            throw new RuntimeException("field " + fldname + " not found.");
+        return sources.add(true, i);
+    }
+
+    public int getInt(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return currentRow()[sources.index(fldindex)].asInt();
+        else
+            return s2.getInt(sources.index(fldindex));
+    }
+
+    public String getString(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return currentRow()[sources.index(fldindex)].asString();
+        else
+            return s2.getString(sources.index(fldindex));
+    }
+
+    public Constant getVal(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return currentRow()[sources.index(fldindex)];
+        else
+            return s2.getVal(sources.index(fldindex));
+    }
+
+    private Constant[] currentRow() {
+        return matches.get(keyIterator - 1);
     }
 
     /**
@@ -1,5 +1,7 @@
 package simpledb.materialize;
 
+import java.util.List;
+
 import simpledb.plan.Plan;
 import simpledb.query.Scan;
 import simpledb.query.UpdateScan;
@@ -39,10 +41,17 @@ public class MaterializePlan implements Plan {
         TempTable temp = new TempTable(tx, sch);
         Scan src = srcplan.open();
         UpdateScan dest = temp.open();
+        List<String> fields = sch.fields();
+        int[] srcindexes = new int[fields.size()];
+        int[] destindexes = new int[fields.size()];
+        for (int i = 0; i < srcindexes.length; i++) {
+            srcindexes[i] = src.fieldIndex(fields.get(i));
+            destindexes[i] = dest.fieldIndex(fields.get(i));
+        }
         while (src.next()) {
             dest.insert();
-            for (String fldname : sch.fields())
-                dest.setVal(fldname, src.getVal(fldname));
+            for (int i = 0; i < srcindexes.length; i++)
+                dest.setVal(destindexes[i], src.getVal(srcindexes[i]));
         }
         src.close();
         dest.beforeFirst();
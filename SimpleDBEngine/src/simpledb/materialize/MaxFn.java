@@ -1,5 +1,6 @@
 package simpledb.materialize;
 
+import simpledb.query.Batch;
 import simpledb.query.Constant;
 import simpledb.query.Scan;
 
@@ -43,6 +44,32 @@ public class MaxFn implements AggregationFn {
             val = newval;
     }
 
+    /**
+     * Replace the current maximum by the highest
+     * field value of the rows, if it is higher.
+     *
+     * @see simpledb.materialize.AggregationFn#processBatch(Batch, int, int, boolean)
+     */
+    public void processBatch(Batch b, int start, int end, boolean first) {
+        int col = b.fieldIndex(fldname);
+        int[] sel = b.selection();
+        int best = start;
+        if (b.isInt(col)) {
+            int[] vals = b.ints(col);
+            for (int i = start + 1; i < end; i++)
+                if (vals[sel[i]] > vals[sel[best]])
+                    best = i;
+        } else {
+            String[] vals = b.strings(col);
+            for (int i = start + 1; i < end; i++)
+                if (vals[sel[i]].compareTo(vals[sel[best]]) > 0)
+                    best = i;
+        }
+        Constant newval = b.getVal(col, sel[best]);
+        if (first || newval.compareTo(val) > 0)
+            val = newval;
+    }
+
     /**
      * Return the field's name, prepended by "maxof".
      *
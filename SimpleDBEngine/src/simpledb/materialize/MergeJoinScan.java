@@ -1,6 +1,8 @@
 package simpledb.materialize;
 
 import simpledb.query.Constant;
+import simpledb.query.FieldSources;
+import simpledb.query.MutableConstant;
 import simpledb.query.Scan;
 
 /**
@@ -12,6 +14,9 @@ public class MergeJoinScan implements Scan {
     private Scan s1;
     private SortScan s2;
     private String fldname1, fldname2;
+    private int fldindex1, fldindex2;
+    private FieldSources sources = new FieldSources();
+    private MutableConstant val1 = new MutableConstant(), val2 = new MutableConstant();
     private Constant joinval = null;
     private boolean s1IsEmpty;
     private boolean s2IsEmpty;
@@ -29,6 +34,8 @@ public class MergeJoinScan implements Scan {
         this.s2 = s2;
         this.fldname1 = fldname1;
         this.fldname2 = fldname2;
+        fldindex1 = s1.fieldIndex(fldname1);
+        fldindex2 = s2.fieldIndex(fldname2);
         s1IsEmpty = !s1.next();
         s2IsEmpty = !s2.next();
         beforeFirst();
@@ -75,25 +82,25 @@ public class MergeJoinScan implements Scan {
             return false;
         }
         boolean hasmore2 = s2.next();
-        if (hasmore2 && joinval != null && s2.getVal(fldname2).equals(joinval))
+        if (hasmore2 && joinval != null && val2.load(s2, fldindex2).equals(joinval))
             return true;
 
         boolean hasmore1 = s1.next();
-        if (hasmore1 && joinval != null && s1.getVal(fldname1).equals(joinval)) {
+        if (hasmore1 && joinval != null && val1.load(s1, fldindex1).equals(joinval)) {
             s2.restorePosition();
             return true;
         }
 
         while (hasmore1 && hasmore2) {
-            Constant v1 = s1.getVal(fldname1);
-            Constant v2 = s2.getVal(fldname2);
+            Constant v1 = val1.load(s1, fldindex1);
+            Constant v2 = val2.load(s2, fldindex2);
             if (v1.compareTo(v2) < 0)
                 hasmore1 = s1.next();
             else if (v1.compareTo(v2) > 0)
                 hasmore2 = s2.next();
             else {
                 s2.savePosition();
-                joinval = s2.getVal(fldname2);
+                joinval = val2.copy();
                 return true;
             }
         }
@@ -142,6 +149,39 @@ public class MergeJoinScan implements Scan {
             return s2.getVal(fldname);
     }
 
+    /**
+     * Resolve the field to whichever scan contains it.
+     *
+     * @see simpledb.query.Scan#fieldIndex(java.lang.String)
+     */
+    public int fieldIndex(String fldname) {
+        if (s1.hasField(fldname))
+            return sources.add(true, s1.fieldIndex(fldname));
+        else
+            return sources.add(false, s2.fieldIndex(fldname));
+    }
+
+    public int getInt(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getInt(sources.index(fldindex));
+        else
+            return s2.getInt(sources.index(fldindex));
+    }
+
+    public String getString(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getString(sources.index(fldindex));
+        else
+            return s2.getString(sources.index(fldindex));
+    }
+
+    public Constant getVal(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getVal(sources.index(fldindex));
+        else
+            return s2.getVal(sources.index(fldindex));
+    }
+
     /**
      * Return true if the specified field is in
      * either of the underlying scans.
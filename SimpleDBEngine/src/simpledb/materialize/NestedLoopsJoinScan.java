@@ -1,6 +1,8 @@
 package simpledb.materialize;
 
 import simpledb.query.Constant;
+import simpledb.query.FieldSources;
+import simpledb.query.MutableConstant;
 import simpledb.query.Operator;
 import simpledb.query.Scan;
 
@@ -12,6 +14,9 @@ import simpledb.query.Scan;
 public class NestedLoopsJoinScan implements Scan {
     private Scan s1, s2;
     private String fldname1, fldname2;
+    private int fldindex1, fldindex2;
+    private FieldSources sources = new FieldSources();
+    private MutableConstant val1 = new MutableConstant(), val2 = new MutableConstant();
     private boolean s1IsEmpty;
     private boolean s2IsEmpty;
     private Operator opr;
@@ -30,6 +35,8 @@ public class NestedLoopsJoinScan implements Scan {
         this.s2 = s2;
         this.fldname1 = fldname1;
         this.fldname2 = fldname2;
+        fldindex1 = s1.fieldIndex(fldname1);
+        fldindex2 = s2.fieldIndex(fldname2);
         this.opr = opr;
         s1IsEmpty = !s1.next();
         s2IsEmpty = !s2.next();
@@ -68,8 +75,8 @@ public class NestedLoopsJoinScan implements Scan {
             return false;
         }
         while (s2.next()) {
-            Constant v1 = s1.getVal(fldname1);
-            Constant v2 = s2.getVal(fldname2);
+            Constant v1 = val1.load(s1, fldindex1);
+            Constant v2 = val2.load(s2, fldindex2);
             if (!opr.evaluate(v1, v2)) {
                 continue;
             } else {
@@ -125,6 +132,39 @@ public class NestedLoopsJoinScan implements Scan {
             return s2.getVal(fldname);
     }
 
+    /**
+     * Resolve the field to whichever scan contains it.
+     *
+     * @see simpledb.query.Scan#fieldIndex(java.lang.String)
+     */
+    public int fieldIndex(String fldname) {
+        if (s1.hasField(fldname))
+            return sources.add(true, s1.fieldIndex(fldname));
+        else
+            return sources.add(false, s2.fieldIndex(fldname));
+    }
+
+    public int getInt(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getInt(sources.index(fldindex));
+        else
+            return s2.getInt(sources.index(fldindex));
+    }
+
+    public String getString(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getString(sources.index(fldindex));
+        else
+            return s2.getString(sources.index(fldindex));
+    }
+
+    public Constant getVal(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getVal(sources.index(fldindex));
+        else
+            return s2.getVal(sources.index(fldindex));
+    }
+
     /**
      * Return true if the specified field is in
      * either of the underlying scans.
@@ -87,7 +87,7 @@ public class SortPlan implements Plan {
             runs = doAMergeIteration(runs);
             numOfPasses += 1;
         }
-        return new SortScan(runs, comp);
+        return new SortScan(runs, comp, sch);
     }
 
     /**
@@ -144,7 +144,10 @@ public class SortPlan implements Plan {
         TempTable currenttemp = new TempTable(tx, sch);
         temps.add(currenttemp);
         UpdateScan currentscan = currenttemp.open();
-        while (copy(src, currentscan))
+        // every run has the same layout, so a field has the same index in each
+        int[] srcindexes = fieldIndexes(src);
+        int[] destindexes = fieldIndexes(currentscan);
+        while (copy(src, srcindexes, currentscan, destindexes))
             if (comp.compare(src, currentscan) < 0) {
                 // start a new run
                 currentscan.close();
@@ -184,6 +187,9 @@ public class SortPlan implements Plan {
         TempTable result = new TempTable(tx, sch);
         UpdateScan dest = result.open();
         List<Constant> prev = null;
+        int[] indexes1 = fieldIndexes(src1);
+        int[] indexes2 = fieldIndexes(src2);
+        int[] destindexes = fieldIndexes(dest);
 
         boolean hasmore1 = src1.next();
         boolean hasmore2 = src2.next();
@@ -203,12 +209,12 @@ public class SortPlan implements Plan {
                 if (isDistinct) {
                     prev = src1.getValuesForFields(selectFields);
                 }
-                hasmore1 = copy(src1, dest);
+                hasmore1 = copy(src1, indexes1, dest, destindexes);
             } else {
                 if (isDistinct) {
                     prev = src2.getValuesForFields(selectFields);
                 }
-                hasmore2 = copy(src2, dest);
+                hasmore2 = copy(src2, indexes2, dest, destindexes);
             }
         }
 
@@ -223,7 +229,7 @@ public class SortPlan implements Plan {
                 if (isDistinct) {
                     prev = src1.getValuesForFields(selectFields);
                 }
-                hasmore1 = copy(src1, dest);
+                hasmore1 = copy(src1, indexes1, dest, destindexes);
             }
         } else {
             while (hasmore2) {
@@ -236,7 +242,7 @@ public class SortPlan implements Plan {
                 if (isDistinct) {
                     prev = src2.getValuesForFields(selectFields);
                 }
-                hasmore2 = copy(src2, dest);
+                hasmore2 = copy(src2, indexes2, dest, destindexes);
             }
         }
         src1.close();
@@ -245,13 +251,21 @@ public class SortPlan implements Plan {
         return result;
     }
 
-    private boolean copy(Scan src, UpdateScan dest) {
+    private boolean copy(Scan src, int[] srcindexes, UpdateScan dest, int[] destindexes) {
         dest.insert();
-        for (String fldname : sch.fields())
-            dest.setVal(fldname, src.getVal(fldname));
+        for (int i = 0; i < srcindexes.length; i++)
+            dest.setVal(destindexes[i], src.getVal(srcindexes[i]));
         return src.next();
     }
 
+    private int[] fieldIndexes(Scan s) {
+        List<String> fields = sch.fields();
+        int[] indexes = new int[fields.size()];
+        for (int i = 0; i < indexes.length; i++)
+            indexes[i] = s.fieldIndex(fields.get(i));
+        return indexes;
+    }
+
     public int getNumOfPasses() {
         return numOfPasses;
     }
@@ -7,6 +7,7 @@ import simpledb.query.Constant;
 import simpledb.query.Scan;
 import simpledb.query.UpdateScan;
 import simpledb.record.RID;
+import simpledb.record.Schema;
 
 /**
  * The Scan class for the <i>sort</i> operator.
@@ -20,6 +21,7 @@ import simpledb.record.RID;
 public class SortScan implements Scan {
     private UpdateScan s1 = null, s2 = null, currentscan = null;
     private RecordComparator comp;
+    private Schema sch;
     private boolean hasmore1, hasmore2 = false;
     private List<RID> savedposition;
 
@@ -30,9 +32,11 @@ public class SortScan implements Scan {
      *
      * @param runs the list of runs
      * @param comp the record comparator
+     * @param sch  the schema of the runs
      */
-    public SortScan(List<TempTable> runs, RecordComparator comp) {
+    public SortScan(List<TempTable> runs, RecordComparator comp, Schema sch) {
         this.comp = comp;
+        this.sch = sch;
         if (runs.size() > 0) {
             s1 = (UpdateScan) runs.get(0).open();
             hasmore1 = s1.next();
@@ -145,7 +149,34 @@ public class SortScan implements Scan {
      * @see simpledb.query.Scan#hasField(java.lang.String)
      */
     public boolean hasField(String fldname) {
-        return currentscan.hasField(fldname);
+        return s1 != null && s1.hasField(fldname);
+    }
+
+    /**
+     * Return the index of the field in the runs.
+     * Each run is a temporary table whose layout is built
+     * from the schema, so a field's index in every run is
+     * its index in the schema, even when there are no runs.
+     *
+     * @see simpledb.query.Scan#fieldIndex(java.lang.String)
+     */
+    public int fieldIndex(String fldname) {
+        int fldindex = sch.index(fldname);
+        if (fldindex < 0)
+            throw new RuntimeException("field " + fldname + " not found.");
+        return fldindex;
+    }
+
+    public Constant getVal(int fldindex) {
+        return currentscan.getVal(fldindex);
+    }
+
+    public int getInt(int fldindex) {
+        return currentscan.getInt(fldindex);
+    }
+
+    public String getString(int fldindex) {
+        return currentscan.getString(fldindex);
     }
 
     /**
@@ -1,5 +1,6 @@
 package simpledb.materialize;
 
+import simpledb.query.Batch;
 import simpledb.query.Constant;
 import simpledb.query.Scan;
 
@@ -42,6 +43,20 @@ public class SumFn implements AggregationFn {
         sum += s.getInt(fldname);
     }
 
+    /**
+     * Add the field values of the rows to the sum.
+     *
+     * @see simpledb.materialize.AggregationFn#processBatch(Batch, int, int, boolean)
+     */
+    public void processBatch(Batch b, int start, int end, boolean first) {
+        int[] vals = b.ints(b.fieldIndex(fldname));
+        int[] sel = b.selection();
+        int total = first ? 0 : sum;
+        for (int i = start; i < end; i++)
+            total += vals[sel[i]];
+        sum = total;
+    }
+
     /**
      * Return the field's name, prepended by "sumof".
      *
@@ -57,7 +72,7 @@ public class SumFn implements AggregationFn {
      * @see simpledb.materialize.AggregationFn#value()
      */
     public Constant value() {
-        return new Constant(sum);
+        return Constant.of(sum);
     }
 
     public String getField() {
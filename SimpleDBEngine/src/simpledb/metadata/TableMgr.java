@@ -33,6 +33,7 @@ class TableMgr {
         Schema tcatSchema = new Schema();
         tcatSchema.addStringField("tblname", MAX_NAME);
         tcatSchema.addIntField("slotsize");
+        tcatSchema.addStringField("format", MAX_NAME);
         tcatLayout = new Layout(tcatSchema);
 
         Schema fcatSchema = new Schema();
@@ -50,19 +51,34 @@ class TableMgr {
     }
 
     /**
-     * Create a new table having the specified name and schema.
+     * Create a new table having the specified name and schema,
+     * whose records have the fixed format.
      *
      * @param tblname the name of the new table
      * @param sch     the table's schema
      * @param tx      the transaction creating the table
      */
     public void createTable(String tblname, Schema sch, Transaction tx) {
-        Layout layout = new Layout(sch);
+        createTable(tblname, sch, Layout.FIXED, tx);
+    }
+
+    /**
+     * Create a new table having the specified name, schema
+     * and record format.
+     *
+     * @param tblname the name of the new table
+     * @param sch     the table's schema
+     * @param format  the record format of the table's blocks
+     * @param tx      the transaction creating the table
+     */
+    public void createTable(String tblname, Schema sch, String format, Transaction tx) {
+        Layout layout = new Layout(sch, format);
         // insert one record into tblcat
         TableScan tcat = new TableScan(tx, "tblcat", tcatLayout);
         tcat.insert();
         tcat.setString("tblname", tblname);
         tcat.setInt("slotsize", layout.slotSize());
+        tcat.setString("format", format);
         tcat.close();
 
         // insert a record into fldcat for each field
@@ -88,10 +104,12 @@ class TableMgr {
      */
     public Layout getLayout(String tblname, Transaction tx) {
         int size = -1;
+        String format = Layout.FIXED;
         TableScan tcat = new TableScan(tx, "tblcat", tcatLayout);
         while (tcat.next())
             if (tcat.getString("tblname").equals(tblname)) {
                 size = tcat.getInt("slotsize");
+                format = tcat.getString("format");
                 break;
             }
         tcat.close();
@@ -109,6 +127,6 @@ class TableMgr {
                 sch.addField(fldname, fldtype, fldlen);
             }
         fcat.close();
-        return new Layout(sch, offsets, size);
+        return new Layout(sch, offsets, size, format);
     }
 }
\ No newline at end of file
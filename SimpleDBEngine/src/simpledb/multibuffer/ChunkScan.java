@@ -42,7 +42,7 @@ public class ChunkScan implements Scan {
         this.endbnum = endbnum;
         for (int i = startbnum; i <= endbnum; i++) {
             BlockId blk = new BlockId(filename, i);
-            buffs.add(new RecordPage(tx, blk, layout));
+            buffs.add(RecordPage.open(tx, blk, layout));
         }
         moveToBlock(startbnum);
     }
@@ -101,10 +101,29 @@ public class ChunkScan implements Scan {
      * @see simpledb.query.Scan#getVal(java.lang.String)
      */
     public Constant getVal(String fldname) {
-        if (layout.schema().type(fldname) == INTEGER)
-            return new Constant(getInt(fldname));
+        return getVal(fieldIndex(fldname));
+    }
+
+    public int fieldIndex(String fldname) {
+        int fldindex = layout.schema().index(fldname);
+        if (fldindex < 0)
+            throw new RuntimeException("field " + fldname + " not found.");
+        return fldindex;
+    }
+
+    public int getInt(int fldindex) {
+        return rp.getInt(currentslot, fldindex);
+    }
+
+    public String getString(int fldindex) {
+        return rp.getString(currentslot, fldindex);
+    }
+
+    public Constant getVal(int fldindex) {
+        if (layout.schema().type(fldindex) == INTEGER)
+            return Constant.of(getInt(fldindex));
         else
-            return new Constant(getString(fldname));
+            return new Constant(getString(fldindex));
     }
 
     /**
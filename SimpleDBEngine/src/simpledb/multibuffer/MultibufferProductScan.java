@@ -1,6 +1,7 @@
 package simpledb.multibuffer;
 
 import simpledb.query.Constant;
+import simpledb.query.FieldSources;
 import simpledb.query.ProductScan;
 import simpledb.query.Scan;
 import simpledb.record.Layout;
@@ -18,6 +19,7 @@ public class MultibufferProductScan implements Scan {
     private String filename;
     private Layout layout;
     private int chunksize, nextblknum, filesize;
+    private FieldSources sources = new FieldSources();
 
 
     /**
@@ -108,6 +110,41 @@ public class MultibufferProductScan implements Scan {
         return prodscan.getString(fldname);
     }
 
+    /**
+     * Resolve the field to the LHS scan, or else to
+     * the RHS table; a field of the RHS table has
+     * the same index in each of its chunks.
+     *
+     * @see simpledb.query.Scan#fieldIndex(java.lang.String)
+     */
+    public int fieldIndex(String fldname) {
+        if (lhsscan.hasField(fldname))
+            return sources.add(true, lhsscan.fieldIndex(fldname));
+        else
+            return sources.add(false, layout.schema().index(fldname));
+    }
+
+    public int getInt(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return lhsscan.getInt(sources.index(fldindex));
+        else
+            return rhsscan.getInt(sources.index(fldindex));
+    }
+
+    public String getString(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return lhsscan.getString(sources.index(fldindex));
+        else
+            return rhsscan.getString(sources.index(fldindex));
+    }
+
+    public Constant getVal(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return lhsscan.getVal(sources.index(fldindex));
+        else
+            return rhsscan.getVal(sources.index(fldindex));
+    }
+
     /**
      * Returns true if the specified field is in
      * either of the underlying scans.
@@ -67,7 +67,7 @@ class TablePlanner {
                 Expression rhs = term.getRhs();
                 Operator operator = term.getOperator();
                 if (indexes.keySet().contains(lhs.asFieldName()) || indexes.keySet().contains(rhs.asFieldName())) {
-                    if (!operator.toString().equals("=")) {
+                    if (operator != Operator.EQ) {
                         // Don't use index for non-equi selects on an indexed field
                         return addSelectPred(myplan);
                     }
@@ -148,7 +148,7 @@ class TablePlanner {
             String matchField = joinPred.equatesWithField(fldname);
             Operator opr = joinPred.getOprForField(fldname);
 
-            if (matchField != null && opr.toString().equals("=") && currsch.hasField(matchField)) {
+            if (matchField != null && opr == Operator.EQ && currsch.hasField(matchField)) {
                 Plan p = new MergeJoinPlan(tx, myplan, current, fldname, matchField);
                 p = addSelectPred(p);
                 return addJoinPred(p, currsch);
@@ -162,7 +162,7 @@ class TablePlanner {
             String matchField = joinPred.equatesWithField(fldName);
             Operator opr = joinPred.getOprForField(fldName);
 
-            if (matchField != null && opr.toString().equals("=") && currsch.hasField(matchField)) {
+            if (matchField != null && opr == Operator.EQ && currsch.hasField(matchField)) {
                 Plan p = new HashJoinPlan(tx, myplan, current, fldName, matchField);
                 p = addSelectPred(p);
                 return addJoinPred(p, currsch);
@@ -175,7 +175,7 @@ class TablePlanner {
         for (String fldname : indexes.keySet()) {
             String outerfield = mypred.equatesWithField(fldname);
             Operator opr = mypred.getOprForField(fldname);
-            if (outerfield != null && opr.toString().equals("=") && currsch.hasField(outerfield)) {
+            if (outerfield != null && opr == Operator.EQ && currsch.hasField(outerfield)) {
                 IndexInfo ii = indexes.get(fldname);
                 Plan p = new IndexJoinPlan(current, myplan, ii, outerfield);
                 p = addSelectPred(p);
@@ -192,8 +192,10 @@ class TablePlanner {
 
             if (matchField != null && currsch.hasField(matchField)) {
                 Plan p;
-                if (currsch.hasField(joinPred.getTerms().get(0).getLhs().asFieldName())) {
-                    p = new NestedLoopsJoinPlan(tx, current, myplan, matchField, fldName, opr);
+                // join in the order of the term that matched the two fields;
+                // the operator compares fldName with matchField, so it is commuted when they are swapped
+                if (matchedOnLeft(joinPred, fldName, matchField)) {
+                    p = new NestedLoopsJoinPlan(tx, current, myplan, matchField, fldName, opr.commute());
                 } else {
                     p = new NestedLoopsJoinPlan(tx, myplan, current, fldName, matchField, opr);
                 }
@@ -204,6 +206,14 @@ class TablePlanner {
         return null;
     }
 
+    private boolean matchedOnLeft(Predicate joinPred, String fldName, String matchField) {
+        for (Term term : joinPred.getTerms()) {
+            if (matchField.equals(term.equatesWithField(fldName)))
+                return term.getLhs().isFieldName() && term.getLhs().asFieldName().equals(matchField);
+        }
+        return false;
+    }
+
     private Plan makeProductJoin(Plan current, Schema currsch) {
         Plan p = makeProductPlan(current);
         return addJoinPred(p, currsch);
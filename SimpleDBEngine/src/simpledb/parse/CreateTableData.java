@@ -1,5 +1,6 @@
 package simpledb.parse;
 
+import simpledb.record.Layout;
 import simpledb.record.Schema;
 
 /**
@@ -10,13 +11,22 @@ import simpledb.record.Schema;
 public class CreateTableData {
     private String tblname;
     private Schema sch;
+    private String format;
 
     /**
      * Saves the table name and schema.
      */
     public CreateTableData(String tblname, Schema sch) {
+        this(tblname, sch, Layout.FIXED);
+    }
+
+    /**
+     * Saves the table name, schema and record format.
+     */
+    public CreateTableData(String tblname, Schema sch, String format) {
         this.tblname = tblname;
         this.sch = sch;
+        this.format = format;
     }
 
     /**
@@ -36,5 +46,14 @@ public class CreateTableData {
     public Schema newSchema() {
         return sch;
     }
+
+    /**
+     * Returns the record format of the new table.
+     *
+     * @return the record format of the new table
+     */
+    public String format() {
+        return format;
+    }
 }
 
@@ -121,7 +121,10 @@ public class Lexer {
         nextToken();
         operator = eatComponentIfPresent(operator); // some operators such "<=" contains
 
-        return new Operator(operator);
+        Operator op = Operator.fromString(operator);
+        if (op == null)
+            throw new BadSyntaxException();
+        return op;
     }
 
     /**
@@ -210,7 +213,7 @@ public class Lexer {
         keywords = Arrays.asList("select", "from", "where", "and",
                 "insert", "into", "values", "delete", "update", "set",
                 "create", "table", "int", "varchar", "view", "as", "index", "on",
-                "using", "hash", "btree", "asc", "desc", "order", "by", "group", "distinct");
+                "using", "hash", "btree", "fixed", "slotted", "asc", "desc", "order", "by", "group", "distinct");
     }
 
     private void initAggregateWords() {
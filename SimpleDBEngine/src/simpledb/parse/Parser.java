@@ -16,6 +16,7 @@ import simpledb.query.Operator;
 import simpledb.query.OrderField;
 import simpledb.query.Predicate;
 import simpledb.query.Term;
+import simpledb.record.Layout;
 import simpledb.record.Schema;
 
 /**
@@ -40,7 +41,7 @@ public class Parser {
         if (lex.matchStringConstant())
             return new Constant(lex.eatStringConstant());
         else
-            return new Constant(lex.eatIntConstant());
+            return Constant.of(lex.eatIntConstant());
     }
 
     public Expression expression() {
@@ -294,7 +295,14 @@ public class Parser {
         lex.eatDelim('(');
         Schema sch = fieldDefs();
         lex.eatDelim(')');
-        return new CreateTableData(tblname, sch);
+        String format = Layout.FIXED;
+        if (lex.matchKeyword("using")) {
+            lex.eatKeyword("using");
+            if (lex.matchKeyword(Layout.SLOTTED))
+                format = Layout.SLOTTED;
+            lex.eatKeyword(format);
+        }
+        return new CreateTableData(tblname, sch, format);
     }
 
     private Schema fieldDefs() {
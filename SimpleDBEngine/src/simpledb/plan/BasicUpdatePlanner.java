@@ -66,7 +66,7 @@ public class BasicUpdatePlanner implements UpdatePlanner {
     }
 
     public int executeCreateTable(CreateTableData data, Transaction tx) {
-        mdm.createTable(data.tableName(), data.newSchema(), tx);
+        mdm.createTable(data.tableName(), data.newSchema(), data.format(), tx);
         return 0;
     }
 
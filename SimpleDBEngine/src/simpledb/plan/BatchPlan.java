@@ -0,0 +1,62 @@
+package simpledb.plan;
+
+import simpledb.query.BatchScan;
+import simpledb.query.RowScan;
+import simpledb.query.Scan;
+import simpledb.record.Schema;
+
+/**
+ * A plan that executes its underlying plan a batch of
+ * records at a time. Its scan returns the records of the
+ * underlying batch scan one by one, so the plan can be
+ * used wherever a plan is expected.
+ * The estimates are those of the underlying plan.
+ *
+ * @author Edward Sciore
+ */
+public class BatchPlan implements Plan {
+    private Plan p;
+
+    /**
+     * Creates a batch plan for the specified query.
+     *
+     * @param p the plan of the query
+     */
+    public BatchPlan(Plan p) {
+        this.p = p;
+    }
+
+    /**
+     * Opens a batch scan of the underlying plan,
+     * and returns a scan of its records.
+     *
+     * @see simpledb.plan.Plan#open()
+     */
+    public Scan open() {
+        return new RowScan(p.openBatch());
+    }
+
+    public BatchScan openBatch() {
+        return p.openBatch();
+    }
+
+    public int blocksAccessed() {
+        return p.blocksAccessed();
+    }
+
+    public int recordsOutput() {
+        return p.recordsOutput();
+    }
+
+    public int distinctValues(String fldname) {
+        return p.distinctValues(fldname);
+    }
+
+    public Schema schema() {
+        return p.schema();
+    }
+
+    public String toString() {
+        return p.toString();
+    }
+}
@@ -25,7 +25,7 @@ public class MultiTablePlanTest {
         Plan p3 = new ProductPlan(p1, p2);
 
         // the Select node for "majorid = did"
-        Term t = new Term(new Expression("majorid"), new Expression("did"), new Operator("="));
+        Term t = new Term(new Expression("majorid"), new Expression("did"), Operator.EQ);
         Predicate pred = new Predicate(t);
         Plan p4 = new SelectPlan(p3, pred);
 
@@ -1,6 +1,8 @@
 package simpledb.plan;
 
+import simpledb.query.BatchScan;
 import simpledb.query.Scan;
+import simpledb.query.ScanBatchScan;
 import simpledb.record.Schema;
 
 /**
@@ -19,6 +21,17 @@ public interface Plan {
      */
     public Scan open();
 
+    /**
+     * Opens a batch scan corresponding to this plan.
+     * A plan without a batch implementation reads the
+     * records of its ordinary scan into batches.
+     *
+     * @return a batch scan
+     */
+    public default BatchScan openBatch() {
+        return new ScanBatchScan(open(), schema());
+    }
+
     /**
      * Returns an estimate of the number of block accesses
      * that will occur when the scan is read to completion.
@@ -18,10 +18,24 @@ import simpledb.tx.Transaction;
 public class Planner {
     private QueryPlanner qplanner;
     private UpdatePlanner uplanner;
+    private boolean batched;
 
     public Planner(QueryPlanner qplanner, UpdatePlanner uplanner) {
+        this(qplanner, uplanner, false);
+    }
+
+    /**
+     * Creates a planner that can execute its query plans
+     * a batch of records at a time.
+     *
+     * @param qplanner the query planner
+     * @param uplanner the update planner
+     * @param batched  true if query plans are executed in batches
+     */
+    public Planner(QueryPlanner qplanner, UpdatePlanner uplanner, boolean batched) {
         this.qplanner = qplanner;
         this.uplanner = uplanner;
+        this.batched = batched;
     }
 
     /**
@@ -35,7 +49,8 @@ public class Planner {
         Parser parser = new Parser(qry);
         QueryData data = parser.query();
         verifyQuery(data);
-        return qplanner.createPlan(data, tx);
+        Plan p = qplanner.createPlan(data, tx);
+        return batched ? new BatchPlan(p) : p;
     }
 
     /**
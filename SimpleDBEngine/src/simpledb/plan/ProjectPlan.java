@@ -2,6 +2,8 @@ package simpledb.plan;
 
 import java.util.List;
 
+import simpledb.query.BatchScan;
+import simpledb.query.ProjectBatchScan;
 import simpledb.query.ProjectScan;
 import simpledb.query.Scan;
 import simpledb.record.Schema;
@@ -41,6 +43,16 @@ public class ProjectPlan implements Plan {
         return new ProjectScan(s, schema.fields());
     }
 
+    /**
+     * Creates a project batch scan for this query.
+     *
+     * @see simpledb.plan.Plan#openBatch()
+     */
+    public BatchScan openBatch() {
+        BatchScan s = p.openBatch();
+        return new ProjectBatchScan(s, schema.fields());
+    }
+
     /**
      * Estimates the number of block accesses in the projection,
      * which is the same as in the underlying query.
@@ -1,7 +1,9 @@
 package simpledb.plan;
 
+import simpledb.query.BatchScan;
 import simpledb.query.Predicate;
 import simpledb.query.Scan;
+import simpledb.query.SelectBatchScan;
 import simpledb.query.SelectScan;
 import simpledb.record.Schema;
 
@@ -34,7 +36,17 @@ public class SelectPlan implements Plan {
      */
     public Scan open() {
         Scan s = p.open();
-        return new SelectScan(s, pred);
+        return new SelectScan(s, pred, p.schema());
+    }
+
+    /**
+     * Creates a select batch scan for this query.
+     *
+     * @see simpledb.plan.Plan#openBatch()
+     */
+    public BatchScan openBatch() {
+        BatchScan s = p.openBatch();
+        return new SelectBatchScan(s, pred);
     }
 
     /**
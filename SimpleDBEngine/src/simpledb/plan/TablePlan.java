@@ -2,9 +2,11 @@ package simpledb.plan;
 
 import simpledb.metadata.MetadataMgr;
 import simpledb.metadata.StatInfo;
+import simpledb.query.BatchScan;
 import simpledb.query.Scan;
 import simpledb.record.Layout;
 import simpledb.record.Schema;
+import simpledb.record.TableBatchScan;
 import simpledb.record.TableScan;
 import simpledb.tx.Transaction;
 
@@ -42,6 +44,15 @@ public class TablePlan implements Plan {
         return new TableScan(tx, tblname, layout);
     }
 
+    /**
+     * Creates a table batch scan for this query.
+     *
+     * @see simpledb.plan.Plan#openBatch()
+     */
+    public BatchScan openBatch() {
+        return new TableBatchScan(tx, tblname, layout);
+    }
+
     /**
      * Estimates the number of block accesses for the table,
      * which is obtainable from the statistics manager.
@@ -0,0 +1,179 @@
+package simpledb.query;
+
+import static java.sql.Types.INTEGER;
+
+import java.util.List;
+
+import simpledb.record.Schema;
+
+/**
+ * A batch of up to CAPACITY records, stored by column.
+ * Each field of the schema has a column, which is an int
+ * array for an integer field and a String array for a string field.
+ * <p>
+ * The selection vector lists the rows of the batch that are
+ * part of the output, in order; an operator such as a selection
+ * removes rows by shortening the vector, without moving
+ * any values. Loading a batch selects all of its rows.
+ *
+ * @author Edward Sciore
+ */
+public class Batch {
+    public static final int CAPACITY = 1024;
+    private Schema sch;
+    private int[][] ints;
+    private String[][] strings;
+    private int[] sel = new int[CAPACITY];
+    private int size = 0, selected = 0;
+
+    /**
+     * Create an empty batch having a column for each field
+     * of the schema.
+     * The index of a column is the index of its field in the schema.
+     *
+     * @param sch the schema of the batch's records
+     */
+    public Batch(Schema sch) {
+        this.sch = sch;
+        List<String> fields = sch.fields();
+        ints = new int[fields.size()][];
+        strings = new String[fields.size()][];
+        for (int i = 0; i < fields.size(); i++) {
+            if (sch.type(i) == INTEGER)
+                ints[i] = new int[CAPACITY];
+            else
+                strings[i] = new String[CAPACITY];
+        }
+    }
+
+    /**
+     * Return the schema of the batch's records.
+     *
+     * @return the schema of the batch
+     */
+    public Schema schema() {
+        return sch;
+    }
+
+    /**
+     * Return the index of the column of the specified field.
+     *
+     * @param fldname the name of the field
+     * @return the index of its column
+     */
+    public int fieldIndex(String fldname) {
+        int col = sch.index(fldname);
+        if (col < 0)
+            throw new RuntimeException("field " + fldname + " not found.");
+        return col;
+    }
+
+    /**
+     * Return true if the specified column holds integers.
+     *
+     * @param col the index of the column
+     * @return true if the column holds integers
+     */
+    public boolean isInt(int col) {
+        return ints[col] != null;
+    }
+
+    /**
+     * Return the values of the specified integer column.
+     *
+     * @param col the index of the column
+     * @return the column's values, by row
+     */
+    public int[] ints(int col) {
+        return ints[col];
+    }
+
+    /**
+     * Return the values of the specified string column.
+     *
+     * @param col the index of the column
+     * @return the column's values, by row
+     */
+    public String[] strings(int col) {
+        return strings[col];
+    }
+
+    /**
+     * Return the value of a column in the specified row.
+     *
+     * @param col the index of the column
+     * @param row the row
+     * @return the value, expressed as a Constant
+     */
+    public Constant getVal(int col, int row) {
+        if (ints[col] != null)
+            return Constant.of(ints[col][row]);
+        else
+            return new Constant(strings[col][row]);
+    }
+
+    /**
+     * Store a value into a column in the specified row.
+     *
+     * @param col the index of the column
+     * @param row the row
+     * @param val the value
+     */
+    public void setVal(int col, int row, Constant val) {
+        if (ints[col] != null)
+            ints[col][row] = val.asInt();
+        else
+            strings[col][row] = val.asString();
+    }
+
+    /**
+     * Return the number of rows that have been loaded.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Set the number of rows that have been loaded,
+     * and select all of them.
+     *
+     * @param n the number of rows
+     */
+    public void setSize(int n) {
+        size = n;
+        for (int i = 0; i < n; i++)
+            sel[i] = i;
+        selected = n;
+    }
+
+    /**
+     * Return the selection vector. Its first selected()
+     * entries are the rows of the output.
+     *
+     * @return the selection vector
+     */
+    public int[] selection() {
+        return sel;
+    }
+
+    /**
+     * Return the number of selected rows.
+     *
+     * @return the number of selected rows
+     */
+    public int selected() {
+        return selected;
+    }
+
+    /**
+     * Keep only the first n entries of the selection vector,
+     * which the caller has rewritten.
+     *
+     * @param n the new number of selected rows
+     */
+    public void setSelected(int n) {
+        selected = n;
+    }
+}
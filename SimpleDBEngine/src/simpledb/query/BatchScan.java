@@ -0,0 +1,50 @@
+package simpledb.query;
+
+/**
+ * The interface implemented by scans that produce
+ * their records a batch at a time, instead of one at a time.
+ * A batch scan costs a few calls per batch rather than
+ * per record, and lets an operator work through a column
+ * of values in a loop.
+ *
+ * @author Edward Sciore
+ */
+public interface BatchScan {
+
+    /**
+     * Position the scan before its first batch.
+     */
+    public void beforeFirst();
+
+    /**
+     * Return the next batch of records, or null if there are
+     * no more. The scan may reuse the same batch object for each
+     * call, so the batch is only valid until the next call.
+     * A returned batch has at least one selected row.
+     *
+     * @return the next batch, or null
+     */
+    public Batch nextBatch();
+
+    /**
+     * Return the index of the column that holds the
+     * specified field in each batch of the scan.
+     *
+     * @param fldname the name of the field
+     * @return the index of its column
+     */
+    public int fieldIndex(String fldname);
+
+    /**
+     * Return true if the scan has the specified field.
+     *
+     * @param fldname the name of the field
+     * @return true if the scan has that field
+     */
+    public boolean hasField(String fldname);
+
+    /**
+     * Close the scan and its subscans, if any.
+     */
+    public void close();
+}
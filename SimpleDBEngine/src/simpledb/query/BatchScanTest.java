@@ -0,0 +1,99 @@
+package simpledb.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import simpledb.record.Layout;
+import simpledb.record.Schema;
+import simpledb.record.TableBatchScan;
+import simpledb.record.TableScan;
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+
+public class BatchScanTest {
+    public static void main(String[] args) throws Exception {
+        SimpleDB db = new SimpleDB("batchscantest");
+        Transaction tx = db.newTx();
+
+        Schema sch1 = new Schema();
+        sch1.addIntField("A");
+        sch1.addStringField("B", 9);
+        Layout layout = new Layout(sch1);
+        UpdateScan s1 = new TableScan(tx, "T", layout);
+
+        s1.beforeFirst();
+        int n = 3000;
+        System.out.println("Inserting " + n + " random records.");
+        for (int i = 0; i < n; i++) {
+            s1.insert();
+            int k = (int) Math.round(Math.random() * 50);
+            s1.setInt("A", k);
+            s1.setString("B", "rec" + k);
+        }
+        s1.close();
+
+        boolean ok = true;
+        // selecting all records where A<10 and B<>'rec5'
+        Predicate pred = new Predicate(new Term(new Expression("A"),
+                new Expression(new Constant(10)), Operator.LT));
+        pred.conjoinWith(new Predicate(new Term(new Expression("B"),
+                new Expression(new Constant("rec5")), Operator.NE)));
+        ok = compareSelections(tx, layout, pred) && ok;
+
+        // a string field compared with an integer constant, and the reverse;
+        // values of different types are never equal
+        ok = compareSelections(tx, layout, new Predicate(new Term(new Expression("B"),
+                new Expression(new Constant(4)), Operator.EQ))) && ok;
+        ok = compareSelections(tx, layout, new Predicate(new Term(new Expression(new Constant(5)),
+                new Expression("B"), Operator.NE))) && ok;
+        ok = compareSelections(tx, layout, new Predicate(new Term(new Expression("A"),
+                new Expression(new Constant("rec5")), Operator.GE))) && ok;
+        ok = compareSelections(tx, layout, new Predicate(new Term(new Expression("A"),
+                new Expression(new Constant("rec5")), Operator.NE))) && ok;
+
+        System.out.println(ok ? "The results agree." : "The results differ.");
+        tx.commit();
+    }
+
+    // Select the records of T satisfying the predicate by evaluating it
+    // term by term, with a select scan and with a select batch scan,
+    // and check that all three give the same records.
+    private static boolean compareSelections(Transaction tx, Layout layout, Predicate pred) {
+        List<String> fields = Arrays.asList("A", "B");
+        List<String> expected = new ArrayList<>();
+        Scan s = new TableScan(tx, "T", layout);
+        while (s.next())
+            if (pred.isSatisfied(s))
+                expected.add(s.getInt("A") + " " + s.getString("B"));
+        s.close();
+
+        List<String> selected = new ArrayList<>();
+        s = new ProjectScan(new SelectScan(new TableScan(tx, "T", layout), pred, layout.schema()), fields);
+        while (s.next())
+            selected.add(s.getInt("A") + " " + s.getString("B"));
+        s.close();
+
+        List<String> batched = new ArrayList<>();
+        BatchScan bs = new ProjectBatchScan(new SelectBatchScan(
+                new TableBatchScan(tx, "T", layout), pred), fields);
+        int acol = bs.fieldIndex("A"), bcol = bs.fieldIndex("B");
+        int batches = 0;
+        Batch b = bs.nextBatch();
+        while (b != null) {
+            batches++;
+            for (int i = 0; i < b.selected(); i++) {
+                int row = b.selection()[i];
+                batched.add(b.ints(acol)[row] + " " + b.strings(bcol)[row]);
+            }
+            b = bs.nextBatch();
+        }
+        bs.close();
+
+        System.out.println("The predicate " + pred + " selects " + expected.size()
+                + " records; the scan selected " + selected.size()
+                + " records; the batch scan selected " + batched.size()
+                + " records in " + batches + " batches.");
+        return selected.equals(expected) && batched.equals(expected);
+    }
+}
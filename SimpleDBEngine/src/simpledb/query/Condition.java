@@ -0,0 +1,24 @@
+package simpledb.query;
+
+/**
+ * A predicate that has been compiled for a particular scan.
+ * The fields of the predicate are resolved to their indexes
+ * in the scan, and the comparison of each term is chosen
+ * when the condition is created, so testing a record
+ * only reads the fields and compares them.
+ *
+ * @author Edward Sciore
+ */
+@FunctionalInterface
+public interface Condition {
+
+    /**
+     * Return true if the current record of the scan
+     * satisfies the condition. The scan must be the one
+     * for which the condition was compiled.
+     *
+     * @param s the scan
+     * @return true if the condition holds for the current record
+     */
+    boolean isSatisfied(Scan s);
+}
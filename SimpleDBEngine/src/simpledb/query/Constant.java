@@ -2,21 +2,70 @@ package simpledb.query;
 
 /**
  * The class that denotes values stored in the database.
+ * An integer value is held as an int, so that constants
+ * compare and hash without boxing.
+ * Constants are immutable, except for the value holders of
+ * {@link MutableConstant}, and so small integer constants
+ * can be shared; see {@link #of(int)}.
  *
  * @author Edward Sciore
  */
 public class Constant implements Comparable<Constant> {
-    private Integer ival = null;
-    private String sval = null;
+    private static final int CACHE_LOW = -128, CACHE_HIGH = 1024;
+    private static final Constant[] cache = new Constant[CACHE_HIGH - CACHE_LOW + 1];
 
-    public Constant(Integer ival) {
+    static {
+        for (int i = 0; i < cache.length; i++)
+            cache[i] = new Constant(CACHE_LOW + i);
+    }
+
+    boolean isint;
+    int ival;
+    String sval;
+
+    public Constant(int ival) {
+        this.isint = true;
         this.ival = ival;
     }
 
     public Constant(String sval) {
+        this.isint = false;
         this.sval = sval;
     }
 
+    /**
+     * Return a constant for the specified integer.
+     * Small integers share a constant instead of
+     * creating a new one.
+     *
+     * @param ival the integer value
+     * @return a constant having that value
+     */
+    public static Constant of(int ival) {
+        if (ival >= CACHE_LOW && ival <= CACHE_HIGH)
+            return cache[ival - CACHE_LOW];
+        return new Constant(ival);
+    }
+
+    /**
+     * Return a constant for the specified string.
+     *
+     * @param sval the string value
+     * @return a constant having that value
+     */
+    public static Constant of(String sval) {
+        return new Constant(sval);
+    }
+
+    /**
+     * Return true if the constant holds an integer.
+     *
+     * @return true if the constant holds an integer
+     */
+    public boolean isInt() {
+        return isint;
+    }
+
     public int asInt() {
         return ival;
     }
@@ -27,18 +76,18 @@ public class Constant implements Comparable<Constant> {
 
     public boolean equals(Object obj) {
         Constant c = (Constant) obj;
-        return (ival != null) ? ival.equals(c.ival) : sval.equals(c.sval);
+        return isint ? (c.isint && ival == c.ival) : sval.equals(c.sval);
     }
 
     public int compareTo(Constant c) {
-        return (ival != null) ? ival.compareTo(c.ival) : sval.compareTo(c.sval);
+        return isint ? Integer.compare(ival, c.ival) : sval.compareTo(c.sval);
     }
 
     public int hashCode() {
-        return (ival != null) ? ival.hashCode() : sval.hashCode();
+        return isint ? Integer.hashCode(ival) : sval.hashCode();
     }
 
     public String toString() {
-        return (ival != null) ? ival.toString() : sval.toString();
+        return isint ? Integer.toString(ival) : sval;
     }
 }
@@ -0,0 +1,55 @@
+package simpledb.query;
+
+import java.util.Arrays;
+
+/**
+ * The fields that a scan reads from one of two underlying scans,
+ * such as the scan of a product or of a join.
+ * The scan resolves each field once, to the underlying
+ * scan that has it and the field's index in that scan, and
+ * gives out the position of that entry as the field's index.
+ *
+ * @author Edward Sciore
+ */
+public class FieldSources {
+    private boolean[] left = new boolean[8];
+    private int[] indexes = new int[8];
+    private int count = 0;
+
+    /**
+     * Add a field, and return its index in the calling scan.
+     *
+     * @param isLeft   true if the field is read from the left scan
+     * @param fldindex the index of the field in that scan
+     * @return the index of the field in the calling scan
+     */
+    public int add(boolean isLeft, int fldindex) {
+        if (count == indexes.length) {
+            left = Arrays.copyOf(left, 2 * count);
+            indexes = Arrays.copyOf(indexes, 2 * count);
+        }
+        left[count] = isLeft;
+        indexes[count] = fldindex;
+        return count++;
+    }
+
+    /**
+     * Return true if the field is read from the left scan.
+     *
+     * @param fldindex the index of the field in the calling scan
+     * @return true if the field is read from the left scan
+     */
+    public boolean isLeft(int fldindex) {
+        return left[fldindex];
+    }
+
+    /**
+     * Return the index of the field in the scan that it is read from.
+     *
+     * @param fldindex the index of the field in the calling scan
+     * @return the index of the field in the underlying scan
+     */
+    public int index(int fldindex) {
+        return indexes[fldindex];
+    }
+}
@@ -0,0 +1,93 @@
+package simpledb.query;
+
+/**
+ * A constant whose value can be replaced, so that an operator
+ * can read the values of a field, record after record,
+ * without creating a constant for each of them.
+ * A mutable constant may be compared with other constants and
+ * used to look up a hash table, but must not be kept:
+ * a value that needs to outlive the current record is saved
+ * by calling {@link #copy()}.
+ *
+ * @author Edward Sciore
+ */
+public class MutableConstant extends Constant {
+    private boolean typed = false;
+
+    public MutableConstant() {
+        super(0);
+    }
+
+    /**
+     * Replace the value by the specified integer.
+     *
+     * @param ival the new value
+     */
+    public void set(int ival) {
+        isint = true;
+        this.ival = ival;
+        typed = true;
+    }
+
+    /**
+     * Replace the value by the specified string.
+     *
+     * @param sval the new value
+     */
+    public void set(String sval) {
+        isint = false;
+        this.sval = sval;
+        typed = true;
+    }
+
+    /**
+     * Replace the value by the value of the specified field
+     * in the current record of the scan, and return this constant.
+     * The first call reads the field as a Constant, to learn
+     * its type; later calls read the integer or string directly.
+     * The holder should therefore always be loaded from the same field.
+     *
+     * @param s        the scan
+     * @param fldindex the index of the field in the scan
+     * @return this constant
+     */
+    public MutableConstant load(Scan s, int fldindex) {
+        if (!typed) {
+            Constant c = s.getVal(fldindex);
+            if (c.isInt())
+                set(c.asInt());
+            else
+                set(c.asString());
+        } else if (isint)
+            ival = s.getInt(fldindex);
+        else
+            sval = s.getString(fldindex);
+        return this;
+    }
+
+    /**
+     * Replace the value by the value of the specified column
+     * in a row of the batch, and return this constant.
+     *
+     * @param b   the batch
+     * @param col the index of the column
+     * @param row the row
+     * @return this constant
+     */
+    public MutableConstant load(Batch b, int col, int row) {
+        if (b.isInt(col))
+            set(b.ints(col)[row]);
+        else
+            set(b.strings(col)[row]);
+        return this;
+    }
+
+    /**
+     * Return an immutable constant having the current value.
+     *
+     * @return a copy of the value
+     */
+    public Constant copy() {
+        return isint ? Constant.of(ival) : new Constant(sval);
+    }
+}
@@ -2,45 +2,168 @@ package simpledb.query;
 
 /**
  * An operator is used to compare 2 expressions in a term.
+ * Each operator has a comparison for integers and one for strings,
+ * and knows its inverse and its commuted form, so that a planner can
+ * reason about terms without looking at their text.
  */
-public class Operator {
-    private final String operator;
+public enum Operator {
+    EQ("=") {
+        public boolean compare(int first, int second) {
+            return first == second;
+        }
+
+        public boolean compare(String first, String second) {
+            return first.equals(second);
+        }
+    },
+    NE("<>") {
+        public boolean compare(int first, int second) {
+            return first != second;
+        }
+
+        public boolean compare(String first, String second) {
+            return !first.equals(second);
+        }
+    },
+    LT("<") {
+        public boolean compare(int first, int second) {
+            return first < second;
+        }
+
+        public boolean compare(String first, String second) {
+            return first.compareTo(second) < 0;
+        }
+    },
+    LE("<=") {
+        public boolean compare(int first, int second) {
+            return first <= second;
+        }
+
+        public boolean compare(String first, String second) {
+            return first.compareTo(second) <= 0;
+        }
+    },
+    GT(">") {
+        public boolean compare(int first, int second) {
+            return first > second;
+        }
+
+        public boolean compare(String first, String second) {
+            return first.compareTo(second) > 0;
+        }
+    },
+    GE(">=") {
+        public boolean compare(int first, int second) {
+            return first >= second;
+        }
+
+        public boolean compare(String first, String second) {
+            return first.compareTo(second) >= 0;
+        }
+    };
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
 
     /**
-     * Create a new operator that will be used to compare 2 expressions in a term based on the
-     * given string representation.
+     * Return the operator having the specified string representation,
+     * or null if there is none. Both "&lt;&gt;" and "!=" denote NE.
      *
-     * @param operator String representation of the operator
+     * @param symbol the string representation of the operator
+     * @return the operator, or null
      */
-    public Operator(String operator) {
-        this.operator = operator;
+    public static Operator fromString(String symbol) {
+        if (symbol.equals("!="))
+            return NE;
+        for (Operator op : values())
+            if (op.symbol.equals(symbol))
+                return op;
+        return null;
     }
 
     /**
-     * Executes the comparison between the 2 inputs
+     * Compares two integers.
+     *
+     * @param first  the value on the lhs of the term
+     * @param second the value on the rhs of the term
+     * @return true if the operator holds between them
+     */
+    public abstract boolean compare(int first, int second);
+
+    /**
+     * Compares two strings.
+     *
+     * @param first  the value on the lhs of the term
+     * @param second the value on the rhs of the term
+     * @return true if the operator holds between them
+     */
+    public abstract boolean compare(String first, String second);
+
+    /**
+     * Executes the comparison between the 2 inputs.
+     * Values of different types are never equal.
      *
      * @param first  The expression on the lhs of the term
      * @param second The expression on the rhs of the term
      */
     public boolean evaluate(Constant first, Constant second) {
-        switch (operator) {
-        case "<>":
-        case "!=":
-            return !first.equals(second);
-        case "<":
-            return first.compareTo(second) < 0;
-        case "<=":
-            return first.compareTo(second) <= 0;
-        case ">":
-            return first.compareTo(second) > 0;
-        case ">=":
-            return first.compareTo(second) >= 0;
+        if (first.isInt() && second.isInt())
+            return compare(first.asInt(), second.asInt());
+        else if (!first.isInt() && !second.isInt())
+            return compare(first.asString(), second.asString());
+        else
+            return this == NE;
+    }
+
+    /**
+     * Return the operator that holds exactly when this one
+     * does not; for example, the inverse of "&lt;" is "&gt;=".
+     *
+     * @return the inverse operator
+     */
+    public Operator inverse() {
+        switch (this) {
+        case EQ:
+            return NE;
+        case NE:
+            return EQ;
+        case LT:
+            return GE;
+        case LE:
+            return GT;
+        case GT:
+            return LE;
         default:
-            return first.equals(second);
+            return LT;
+        }
+    }
+
+    /**
+     * Return the operator that gives the same result
+     * when the two expressions are swapped;
+     * for example, "a &lt; b" is the same as "b &gt; a".
+     *
+     * @return the commuted operator
+     */
+    public Operator commute() {
+        switch (this) {
+        case LT:
+            return GT;
+        case LE:
+            return GE;
+        case GT:
+            return LT;
+        case GE:
+            return LE;
+        default:
+            return this;
         }
     }
 
     public String toString() {
-        return operator;
+        return symbol;
     }
 }
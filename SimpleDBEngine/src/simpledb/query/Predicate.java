@@ -54,6 +54,53 @@ public class Predicate {
         return true;
     }
 
+    /**
+     * Compile the predicate into a condition on the records
+     * of the specified scan, by compiling each of its terms.
+     *
+     * @param s   the scan
+     * @param sch the schema of the scan
+     * @return the compiled condition
+     * @see Term#compile(Scan, Schema)
+     */
+    public Condition compile(Scan s, Schema sch) {
+        Condition[] conds = new Condition[terms.size()];
+        for (int i = 0; i < conds.length; i++)
+            conds[i] = terms.get(i).compile(s, sch);
+        switch (conds.length) {
+        case 0:
+            return x -> true;
+        case 1:
+            return conds[0];
+        case 2:
+            Condition c1 = conds[0], c2 = conds[1];
+            return x -> c1.isSatisfied(x) && c2.isSatisfied(x);
+        default:
+            return x -> {
+                for (Condition c : conds)
+                    if (!c.isSatisfied(x))
+                        return false;
+                return true;
+            };
+        }
+    }
+
+    /**
+     * Remove from the selection vector of the batch
+     * the rows that do not satisfy the predicate.
+     * Each term only examines the rows that the
+     * previous terms have kept.
+     *
+     * @param b the batch
+     */
+    public void select(Batch b) {
+        for (Term t : terms) {
+            if (b.selected() == 0)
+                return;
+            t.select(b);
+        }
+    }
+
     /**
      * Calculate the extent to which selecting on the predicate
      * reduces the number of records output by a query.
@@ -9,6 +9,7 @@ package simpledb.query;
 public class ProductScan implements Scan {
     private Scan s1, s2;
     private boolean s1IsEmpty;
+    private FieldSources sources = new FieldSources();
 
     /**
      * Create a product scan having the two underlying scans.
@@ -100,6 +101,39 @@ public class ProductScan implements Scan {
             return s2.getVal(fldname);
     }
 
+    /**
+     * Resolve the field to whichever scan contains it.
+     *
+     * @see simpledb.query.Scan#fieldIndex(java.lang.String)
+     */
+    public int fieldIndex(String fldname) {
+        if (s1.hasField(fldname))
+            return sources.add(true, s1.fieldIndex(fldname));
+        else
+            return sources.add(false, s2.fieldIndex(fldname));
+    }
+
+    public int getInt(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getInt(sources.index(fldindex));
+        else
+            return s2.getInt(sources.index(fldindex));
+    }
+
+    public String getString(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getString(sources.index(fldindex));
+        else
+            return s2.getString(sources.index(fldindex));
+    }
+
+    public Constant getVal(int fldindex) {
+        if (sources.isLeft(fldindex))
+            return s1.getVal(sources.index(fldindex));
+        else
+            return s2.getVal(sources.index(fldindex));
+    }
+
     /**
      * Returns true if the specified field is in
      * either of the underlying scans.
@@ -0,0 +1,52 @@
+package simpledb.query;
+
+import java.util.List;
+
+/**
+ * The batch scan class corresponding to the <i>project</i>
+ * relational algebra operator.
+ * The batches of the underlying scan are passed through
+ * unchanged; the fields outside the projection are
+ * hidden by fieldIndex and hasField.
+ *
+ * @author Edward Sciore
+ */
+public class ProjectBatchScan implements BatchScan {
+    private BatchScan s;
+    private List<String> fieldlist;
+
+    /**
+     * Create a project batch scan having the specified
+     * underlying batch scan and field list.
+     *
+     * @param s         the underlying batch scan
+     * @param fieldlist the list of field names
+     */
+    public ProjectBatchScan(BatchScan s, List<String> fieldlist) {
+        this.s = s;
+        this.fieldlist = fieldlist;
+    }
+
+    public void beforeFirst() {
+        s.beforeFirst();
+    }
+
+    public Batch nextBatch() {
+        return s.nextBatch();
+    }
+
+    public int fieldIndex(String fldname) {
+        if (hasField(fldname))
+            return s.fieldIndex(fldname);
+        else
+            throw new RuntimeException("field " + fldname + " not found.");
+    }
+
+    public boolean hasField(String fldname) {
+        return fieldlist.contains(fldname);
+    }
+
+    public void close() {
+        s.close();
+    }
+}
@@ -55,6 +55,29 @@ public class ProjectScan implements Scan {
             throw new RuntimeException("field " + fldname + " not found.");
     }
 
+    /**
+     * Return the index of the field in the underlying scan,
+     * having checked once that the field is in the projection.
+     */
+    public int fieldIndex(String fldname) {
+        if (hasField(fldname))
+            return s.fieldIndex(fldname);
+        else
+            throw new RuntimeException("field " + fldname + " not found.");
+    }
+
+    public int getInt(int fldindex) {
+        return s.getInt(fldindex);
+    }
+
+    public String getString(int fldindex) {
+        return s.getString(fldindex);
+    }
+
+    public Constant getVal(int fldindex) {
+        return s.getVal(fldindex);
+    }
+
     public boolean hasField(String fldname) {
         return fieldlist.contains(fldname);
     }
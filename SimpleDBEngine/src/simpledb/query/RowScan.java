@@ -0,0 +1,72 @@
+package simpledb.query;
+
+/**
+ * A scan that reads the records of a batch scan one
+ * at a time, so that a batch plan can be used wherever
+ * a scan is expected, such as in a result set.
+ *
+ * @author Edward Sciore
+ */
+public class RowScan implements Scan {
+    private BatchScan bs;
+    private Batch batch = null;
+    private int pos = -1, row;
+
+    public RowScan(BatchScan bs) {
+        this.bs = bs;
+    }
+
+    public void beforeFirst() {
+        bs.beforeFirst();
+        batch = null;
+        pos = -1;
+    }
+
+    public boolean next() {
+        pos++;
+        while (batch == null || pos >= batch.selected()) {
+            batch = bs.nextBatch();
+            pos = 0;
+            if (batch == null)
+                return false;
+        }
+        row = batch.selection()[pos];
+        return true;
+    }
+
+    public int getInt(String fldname) {
+        return getInt(fieldIndex(fldname));
+    }
+
+    public String getString(String fldname) {
+        return getString(fieldIndex(fldname));
+    }
+
+    public Constant getVal(String fldname) {
+        return getVal(fieldIndex(fldname));
+    }
+
+    public int fieldIndex(String fldname) {
+        return bs.fieldIndex(fldname);
+    }
+
+    public int getInt(int fldindex) {
+        return batch.ints(fldindex)[row];
+    }
+
+    public String getString(int fldindex) {
+        return batch.strings(fldindex)[row];
+    }
+
+    public Constant getVal(int fldindex) {
+        return batch.getVal(fldindex, row);
+    }
+
+    public boolean hasField(String fldname) {
+        return bs.hasField(fldname);
+    }
+
+    public void close() {
+        bs.close();
+    }
+}
@@ -49,6 +49,46 @@ public interface Scan {
      */
     public Constant getVal(String fldname);
 
+    /**
+     * Return the index by which the specified field is
+     * read from this scan.
+     * A caller resolves each field once, when it opens the
+     * scan, and then reads each record by index, so that
+     * no field is looked up by name for each record.
+     * The index is only meaningful to this scan.
+     *
+     * @param fldname the name of the field
+     * @return the index of the field in this scan
+     */
+    public int fieldIndex(String fldname);
+
+    /**
+     * Return the value of the integer field having
+     * the specified index, in the current record.
+     *
+     * @param fldindex the index of the field, from fieldIndex
+     * @return the field's integer value in the current record
+     */
+    public int getInt(int fldindex);
+
+    /**
+     * Return the value of the string field having
+     * the specified index, in the current record.
+     *
+     * @param fldindex the index of the field, from fieldIndex
+     * @return the field's string value in the current record
+     */
+    public String getString(int fldindex);
+
+    /**
+     * Return the value of the field having the specified
+     * index in the current record, expressed as a Constant.
+     *
+     * @param fldindex the index of the field, from fieldIndex
+     * @return the value of that field, expressed as a Constant.
+     */
+    public Constant getVal(int fldindex);
+
     /**
      * Return true if the scan has the specified field.
      *
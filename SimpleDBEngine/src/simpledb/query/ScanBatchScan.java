@@ -0,0 +1,73 @@
+package simpledb.query;
+
+import java.util.List;
+
+import simpledb.record.Schema;
+
+/**
+ * A batch scan that reads the records of an ordinary scan,
+ * for operators that have no batch implementation.
+ * The scan is not read again once it has returned false,
+ * since not every scan can be called past its end.
+ *
+ * @author Edward Sciore
+ */
+public class ScanBatchScan implements BatchScan {
+    private Scan s;
+    private Batch batch;
+    private int[] fldindexes;
+    private boolean done = false;
+
+    /**
+     * Create a batch scan over the specified scan.
+     *
+     * @param s   the scan
+     * @param sch the schema of the scan's records
+     */
+    public ScanBatchScan(Scan s, Schema sch) {
+        this.s = s;
+        batch = new Batch(sch);
+        List<String> fields = sch.fields();
+        fldindexes = new int[fields.size()];
+        for (int i = 0; i < fldindexes.length; i++)
+            fldindexes[i] = s.fieldIndex(fields.get(i));
+    }
+
+    public void beforeFirst() {
+        s.beforeFirst();
+        done = false;
+    }
+
+    public Batch nextBatch() {
+        int n = 0;
+        while (!done && n < Batch.CAPACITY) {
+            if (!s.next()) {
+                done = true;
+                break;
+            }
+            for (int col = 0; col < fldindexes.length; col++) {
+                if (batch.isInt(col))
+                    batch.ints(col)[n] = s.getInt(fldindexes[col]);
+                else
+                    batch.strings(col)[n] = s.getString(fldindexes[col]);
+            }
+            n++;
+        }
+        if (n == 0)
+            return null;
+        batch.setSize(n);
+        return batch;
+    }
+
+    public int fieldIndex(String fldname) {
+        return batch.fieldIndex(fldname);
+    }
+
+    public boolean hasField(String fldname) {
+        return batch.schema().hasField(fldname);
+    }
+
+    public void close() {
+        s.close();
+    }
+}
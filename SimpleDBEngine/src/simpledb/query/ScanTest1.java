@@ -34,10 +34,10 @@ public class ScanTest1 {
         Scan s2 = new TableScan(tx, "T", layout);
         // selecting all records where A=10
         Constant c = new Constant(10);
-        Term t = new Term(new Expression("A"), new Expression(c), new Operator("="));
+        Term t = new Term(new Expression("A"), new Expression(c), Operator.EQ);
         Predicate pred = new Predicate(t);
         System.out.println("The predicate is " + pred);
-        Scan s3 = new SelectScan(s2, pred);
+        Scan s3 = new SelectScan(s2, pred, sch1);
         List<String> fields = Arrays.asList("B");
         Scan s4 = new ProjectScan(s3, fields);
         while (s4.next())
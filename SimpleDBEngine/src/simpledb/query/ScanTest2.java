@@ -47,10 +47,13 @@ public class ScanTest2 {
         Scan s2 = new TableScan(tx, "T2", layout2);
         Scan s3 = new ProductScan(s1, s2);
         // selecting all records where A=C
-        Term t = new Term(new Expression("A"), new Expression("C"), new Operator("="));
+        Term t = new Term(new Expression("A"), new Expression("C"), Operator.EQ);
         Predicate pred = new Predicate(t);
         System.out.println("The predicate is " + pred);
-        Scan s4 = new SelectScan(s3, pred);
+        Schema sch3 = new Schema();
+        sch3.addAll(sch1);
+        sch3.addAll(sch2);
+        Scan s4 = new SelectScan(s3, pred, sch3);
 
         // projecting on [B,D]
         List<String> c = Arrays.asList("B", "D");
@@ -0,0 +1,54 @@
+package simpledb.query;
+
+/**
+ * The batch scan class corresponding to the <i>select</i>
+ * relational algebra operator.
+ * Each batch of the underlying scan has its selection
+ * vector narrowed by the predicate; batches left
+ * with no rows are skipped.
+ *
+ * @author Edward Sciore
+ */
+public class SelectBatchScan implements BatchScan {
+    private BatchScan s;
+    private Predicate pred;
+
+    /**
+     * Create a select batch scan having the specified underlying
+     * batch scan and predicate.
+     *
+     * @param s    the batch scan of the underlying query
+     * @param pred the selection predicate
+     */
+    public SelectBatchScan(BatchScan s, Predicate pred) {
+        this.s = s;
+        this.pred = pred;
+    }
+
+    public void beforeFirst() {
+        s.beforeFirst();
+    }
+
+    public Batch nextBatch() {
+        Batch b = s.nextBatch();
+        while (b != null) {
+            pred.select(b);
+            if (b.selected() > 0)
+                return b;
+            b = s.nextBatch();
+        }
+        return null;
+    }
+
+    public int fieldIndex(String fldname) {
+        return s.fieldIndex(fldname);
+    }
+
+    public boolean hasField(String fldname) {
+        return s.hasField(fldname);
+    }
+
+    public void close() {
+        s.close();
+    }
+}
@@ -1,18 +1,21 @@
 package simpledb.query;
 
 import simpledb.record.RID;
+import simpledb.record.Schema;
 
 /**
  * The scan class corresponding to the <i>select</i> relational
  * algebra operator.
  * All methods except next delegate their work to the
  * underlying scan.
+ * The predicate is compiled against the underlying
+ * scan when the select scan is created.
  *
  * @author Edward Sciore
  */
 public class SelectScan implements UpdateScan {
     private Scan s;
-    private Predicate pred;
+    private Condition cond;
 
     /**
      * Create a select scan having the specified underlying
@@ -20,10 +23,11 @@ public class SelectScan implements UpdateScan {
      *
      * @param s    the scan of the underlying query
      * @param pred the selection predicate
+     * @param sch  the schema of the underlying query
      */
-    public SelectScan(Scan s, Predicate pred) {
+    public SelectScan(Scan s, Predicate pred, Schema sch) {
         this.s = s;
-        this.pred = pred;
+        cond = pred.compile(s, sch);
     }
 
     // Scan methods
@@ -34,7 +38,7 @@ public class SelectScan implements UpdateScan {
 
     public boolean next() {
         while (s.next()) {
-            if (pred.isSatisfied(s))
+            if (cond.isSatisfied(s))
                 return true;
         }
         return false;
@@ -52,6 +56,22 @@ public class SelectScan implements UpdateScan {
         return s.getVal(fldname);
     }
 
+    public int fieldIndex(String fldname) {
+        return s.fieldIndex(fldname);
+    }
+
+    public int getInt(int fldindex) {
+        return s.getInt(fldindex);
+    }
+
+    public String getString(int fldindex) {
+        return s.getString(fldindex);
+    }
+
+    public Constant getVal(int fldindex) {
+        return s.getVal(fldindex);
+    }
+
     public boolean hasField(String fldname) {
         return s.hasField(fldname);
     }
@@ -77,6 +97,21 @@ public class SelectScan implements UpdateScan {
         us.setVal(fldname, val);
     }
 
+    public void setInt(int fldindex, int val) {
+        UpdateScan us = (UpdateScan) s;
+        us.setInt(fldindex, val);
+    }
+
+    public void setString(int fldindex, String val) {
+        UpdateScan us = (UpdateScan) s;
+        us.setString(fldindex, val);
+    }
+
+    public void setVal(int fldindex, Constant val) {
+        UpdateScan us = (UpdateScan) s;
+        us.setVal(fldindex, val);
+    }
+
     public void delete() {
         UpdateScan us = (UpdateScan) s;
         us.delete();
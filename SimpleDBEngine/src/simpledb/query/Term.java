@@ -1,5 +1,7 @@
 package simpledb.query;
 
+import static java.sql.Types.INTEGER;
+
 import simpledb.plan.Plan;
 import simpledb.record.Schema;
 
@@ -39,6 +41,114 @@ public class Term {
         return operator.evaluate(lhsval, rhsval);
     }
 
+    /**
+     * Compile the term into a condition on the records of the
+     * specified scan. The fields are resolved to their indexes in
+     * the scan and the comparison is chosen once, so testing a
+     * record does not evaluate the expressions or look at the operator.
+     * An integer field compared with an integer constant is read as
+     * an int, and a string field compared with a string constant is
+     * read as a string. A field compared with a constant of the other
+     * type is never equal to it, as in {@link Operator#evaluate}.
+     *
+     * @param s   the scan
+     * @param sch the schema of the scan
+     * @return the compiled condition
+     */
+    public Condition compile(Scan s, Schema sch) {
+        if (lhs.isFieldName() && rhs.isFieldName()) {
+            int lidx = s.fieldIndex(lhs.asFieldName());
+            int ridx = s.fieldIndex(rhs.asFieldName());
+            MutableConstant lval = new MutableConstant(), rval = new MutableConstant();
+            return x -> operator.evaluate(lval.load(x, lidx), rval.load(x, ridx));
+        } else if (lhs.isFieldName())
+            return compareField(s, sch, lhs.asFieldName(), operator, rhs.asConstant());
+        else if (rhs.isFieldName())
+            return compareField(s, sch, rhs.asFieldName(), operator.commute(), lhs.asConstant());
+        else {
+            boolean result = operator.evaluate(lhs.asConstant(), rhs.asConstant());
+            return x -> result;
+        }
+    }
+
+    private static Condition compareField(Scan s, Schema sch, String fldname, Operator op, Constant c) {
+        int fldindex = s.fieldIndex(fldname);
+        if ((sch.type(fldname) == INTEGER) != c.isInt()) {
+            // values of different types are never equal
+            boolean result = (op == Operator.NE);
+            return x -> result;
+        }
+        if (!c.isInt()) {
+            String val = c.asString();
+            return x -> op.compare(x.getString(fldindex), val);
+        }
+        // a lambda for each operator, so that the comparison can be inlined
+        int val = c.asInt();
+        switch (op) {
+        case NE:
+            return x -> x.getInt(fldindex) != val;
+        case LT:
+            return x -> x.getInt(fldindex) < val;
+        case LE:
+            return x -> x.getInt(fldindex) <= val;
+        case GT:
+            return x -> x.getInt(fldindex) > val;
+        case GE:
+            return x -> x.getInt(fldindex) >= val;
+        default:
+            return x -> x.getInt(fldindex) == val;
+        }
+    }
+
+    /**
+     * Remove from the selection vector of the batch
+     * the rows that do not satisfy the term.
+     * Comparisons of an integer column with a constant or
+     * another integer column are done in a loop over the
+     * column; any other comparison evaluates each row's values.
+     *
+     * @param b the batch
+     */
+    public void select(Batch b) {
+        int[] sel = b.selection();
+        int n = b.selected(), m = 0;
+        if (lhs.isFieldName() && rhs.isFieldName()) {
+            int lcol = b.fieldIndex(lhs.asFieldName());
+            int rcol = b.fieldIndex(rhs.asFieldName());
+            if (b.isInt(lcol) && b.isInt(rcol)) {
+                int[] lvals = b.ints(lcol), rvals = b.ints(rcol);
+                for (int i = 0; i < n; i++)
+                    if (operator.compare(lvals[sel[i]], rvals[sel[i]]))
+                        sel[m++] = sel[i];
+                b.setSelected(m);
+                return;
+            }
+        } else if (lhs.isFieldName() || rhs.isFieldName()) {
+            boolean fieldOnLeft = lhs.isFieldName();
+            int col = b.fieldIndex(fieldOnLeft ? lhs.asFieldName() : rhs.asFieldName());
+            Constant c = fieldOnLeft ? rhs.asConstant() : lhs.asConstant();
+            Operator op = fieldOnLeft ? operator : operator.commute();
+            if (b.isInt(col) && c.isInt()) {
+                int[] vals = b.ints(col);
+                int cval = c.asInt();
+                for (int i = 0; i < n; i++)
+                    if (op.compare(vals[sel[i]], cval))
+                        sel[m++] = sel[i];
+                b.setSelected(m);
+                return;
+            }
+        }
+        int lcol = lhs.isFieldName() ? b.fieldIndex(lhs.asFieldName()) : -1;
+        int rcol = rhs.isFieldName() ? b.fieldIndex(rhs.asFieldName()) : -1;
+        for (int i = 0; i < n; i++) {
+            Constant lhsval = (lcol >= 0) ? b.getVal(lcol, sel[i]) : lhs.asConstant();
+            Constant rhsval = (rcol >= 0) ? b.getVal(rcol, sel[i]) : rhs.asConstant();
+            if (operator.evaluate(lhsval, rhsval))
+                sel[m++] = sel[i];
+        }
+        b.setSelected(m);
+    }
+
     /**
      * Calculate the extent to which selecting on the term reduces
      * the number of records output by a query.
@@ -115,6 +225,16 @@ public class Term {
             return null;
     }
 
+    /**
+     * Determine if this term is of the form "F1 op F2"
+     * where F1 is the specified field and F2 is another field.
+     * If so, the method returns the operator, commuted if
+     * necessary so that it compares F1 with F2.
+     * If not, the method returns null.
+     *
+     * @param fldname the name of the field
+     * @return either the operator, or null
+     */
     public Operator getOprForField(String fldname) {
         if (lhs.isFieldName() &&
                 lhs.asFieldName().equals(fldname) &&
@@ -123,7 +243,7 @@ public class Term {
         else if (rhs.isFieldName() &&
                 rhs.asFieldName().equals(fldname) &&
                 lhs.isFieldName())
-            return operator;
+            return operator.commute();
         else
             return null;
     }
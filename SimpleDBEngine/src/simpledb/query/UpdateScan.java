@@ -32,6 +32,30 @@ public interface UpdateScan extends Scan {
      */
     public void setString(String fldname, String val);
 
+    /**
+     * Modify the value of the field having the specified index.
+     *
+     * @param fldindex the index of the field, from fieldIndex
+     * @param val      the new value, expressed as a Constant
+     */
+    public void setVal(int fldindex, Constant val);
+
+    /**
+     * Modify the value of the field having the specified index.
+     *
+     * @param fldindex the index of the field, from fieldIndex
+     * @param val      the new integer value
+     */
+    public void setInt(int fldindex, int val);
+
+    /**
+     * Modify the value of the field having the specified index.
+     *
+     * @param fldindex the index of the field, from fieldIndex
+     * @param val      the new string value
+     */
+    public void setString(int fldindex, String val);
+
     /**
      * Insert a new record somewhere in the scan.
      */
@@ -0,0 +1,177 @@
+package simpledb.record;
+
+import simpledb.file.BlockId;
+import simpledb.file.Page;
+import simpledb.tx.Transaction;
+
+/**
+ * Store a record at a given location in a block.
+ * Every record of the table has the same size, and is stored
+ * in a fixed-size slot.
+ * The block begins with a bitmap that has a bit for each slot,
+ * which is set when the slot is in use; the slots follow the bitmap.
+ * A block of zeros is therefore a block of empty slots.
+ * <p>
+ * The page is locked and looked up on the first read,
+ * and is then read directly while the block stays pinned.
+ * Modifications still go through the transaction, so
+ * that they are locked and logged.
+ *
+ * @author Edward Sciore
+ */
+public class FixedRecordPage implements RecordPage {
+    private Transaction tx;
+    private BlockId blk;
+    private Layout layout;
+    private int numslots, headersize;
+    private Page page;
+
+    public FixedRecordPage(Transaction tx, BlockId blk, Layout layout) {
+        this.tx = tx;
+        this.blk = blk;
+        this.layout = layout;
+        int slotsize = layout.slotSize();
+        numslots = tx.blockSize() / slotsize;
+        while (bitmapSize(numslots) + numslots * slotsize > tx.blockSize())
+            numslots--;
+        headersize = bitmapSize(numslots);
+        tx.pin(blk);
+    }
+
+    /**
+     * Return the integer value stored for the
+     * specified field of a specified slot.
+     *
+     * @param fldname the name of the field.
+     * @return the integer stored in that field
+     */
+    public int getInt(int slot, String fldname) {
+        return getInt(slot, layout.schema().index(fldname));
+    }
+
+    /**
+     * Return the string value stored for the
+     * specified field of the specified slot.
+     *
+     * @param fldname the name of the field.
+     * @return the string stored in that field
+     */
+    public String getString(int slot, String fldname) {
+        return getString(slot, layout.schema().index(fldname));
+    }
+
+    /**
+     * Store an integer at the specified field
+     * of the specified slot.
+     *
+     * @param fldname the name of the field
+     * @param val     the integer value stored in that field
+     */
+    public void setInt(int slot, String fldname, int val) {
+        setInt(slot, layout.schema().index(fldname), val);
+    }
+
+    /**
+     * Store a string at the specified field
+     * of the specified slot.
+     *
+     * @param fldname the name of the field
+     * @param val     the string value stored in that field
+     */
+    public void setString(int slot, String fldname, String val) {
+        setString(slot, layout.schema().index(fldname), val);
+    }
+
+    public int getInt(int slot, int fldindex) {
+        return page().getInt(offset(slot) + layout.offset(fldindex));
+    }
+
+    public String getString(int slot, int fldindex) {
+        return page().getString(offset(slot) + layout.offset(fldindex));
+    }
+
+    public void setInt(int slot, int fldindex, int val) {
+        tx.setInt(blk, offset(slot) + layout.offset(fldindex), val, true);
+    }
+
+    public void setString(int slot, int fldindex, String val) {
+        tx.setString(blk, offset(slot) + layout.offset(fldindex), val, true);
+    }
+
+    public void delete(int slot) {
+        setUsed(slot, false);
+    }
+
+    /**
+     * Format a new block of records, by clearing its bitmap.
+     * The slots themselves are not written: a new block
+     * is all zeros, which every field reads as a valid value.
+     * These values should not be logged
+     * (because the old values are meaningless).
+     */
+    public void format() {
+        for (int pos = 0; pos < headersize; pos += Integer.BYTES)
+            tx.setInt(blk, pos, 0, false);
+    }
+
+    public int nextAfter(int slot) {
+        return searchAfter(slot, true);
+    }
+
+    public int insertAfter(int slot) {
+        int newslot = searchAfter(slot, false);
+        if (newslot >= 0)
+            setUsed(newslot, true);
+        return newslot;
+    }
+
+    public BlockId block() {
+        return blk;
+    }
+
+    // Private auxiliary methods
+
+    /**
+     * Set or clear the bit of the slot in the bitmap.
+     */
+    private void setUsed(int slot, boolean used) {
+        int pos = slot / Integer.SIZE * Integer.BYTES;
+        int bit = 1 << (slot % Integer.SIZE);
+        int word = page().getInt(pos);
+        tx.setInt(blk, pos, used ? (word | bit) : (word & ~bit), true);
+    }
+
+    /**
+     * Return the first slot after the specified one whose bit
+     * has the specified value, scanning the bitmap a word at a time.
+     */
+    private int searchAfter(int slot, boolean used) {
+        slot++;
+        while (slot < numslots) {
+            int word = page().getInt(slot / Integer.SIZE * Integer.BYTES);
+            if (!used)
+                word = ~word;
+            word &= -1 << (slot % Integer.SIZE);
+            if (word != 0) {
+                int found = slot - slot % Integer.SIZE + Integer.numberOfTrailingZeros(word);
+                return (found < numslots) ? found : -1;
+            }
+            slot += Integer.SIZE - slot % Integer.SIZE;
+        }
+        return -1;
+    }
+
+    private Page page() {
+        if (page == null)
+            page = tx.readPage(blk);
+        return page;
+    }
+
+    private static int bitmapSize(int numslots) {
+        return (numslots + Integer.SIZE - 1) / Integer.SIZE * Integer.BYTES;
+    }
+
+    private int offset(int slot) {
+        return headersize + slot * layout.slotSize();
+    }
+}
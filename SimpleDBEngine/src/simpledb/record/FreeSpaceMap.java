@@ -0,0 +1,106 @@
+package simpledb.record;
+
+import simpledb.file.BlockId;
+import simpledb.tx.Transaction;
+
+/**
+ * The free-space map of a table, which is kept in its own file.
+ * The map has a bit for each block of the table, which is
+ * set when the block is found to have no room for another
+ * record, and cleared when a record of the block is deleted.
+ * Blocks beyond the end of the map have no bit, and
+ * are treated as having room.
+ * <p>
+ * The map only gives advice: an insertion still checks
+ * that the block it is sent to has room.
+ * The bits are therefore changed without locking or logging,
+ * so that inserting transactions do not contend for the map;
+ * a bit left wrong by a rollback or a crash costs at most a
+ * wasted visit to a block, or some unused space until the next
+ * deletion from the block.
+ *
+ * @author Edward Sciore
+ */
+public class FreeSpaceMap {
+    private Transaction tx;
+    private String filename;
+    private int blocksPerPage;
+
+    /**
+     * Open the free-space map of the specified table.
+     *
+     * @param tx      the calling transaction
+     * @param tblname the name of the table
+     */
+    public FreeSpaceMap(Transaction tx, String tblname) {
+        this.tx = tx;
+        filename = tblname + ".fsm";
+        blocksPerPage = tx.blockSize() * Byte.SIZE;
+    }
+
+    /**
+     * Return the first block, at or after the specified one,
+     * that may have room for another record.
+     *
+     * @param blknum    the block number at which to start
+     * @param numblocks the number of blocks of the table
+     * @return the number of the block, or -1 if all are full
+     */
+    public int nextFree(int blknum, int numblocks) {
+        int mapsize = tx.currentSize(filename);
+        while (blknum < numblocks) {
+            int pagenum = blknum / blocksPerPage;
+            if (pagenum >= mapsize)
+                return blknum;
+            BlockId mapblk = new BlockId(filename, pagenum);
+            tx.pin(mapblk);
+            try {
+                int end = Math.min(numblocks, (pagenum + 1) * blocksPerPage);
+                while (blknum < end) {
+                    int bit = blknum % blocksPerPage;
+                    int word = tx.getHint(mapblk, bit / Integer.SIZE * Integer.BYTES);
+                    int free = ~word & (-1 << (bit % Integer.SIZE));
+                    if (free != 0) {
+                        int found = blknum - bit % Integer.SIZE + Integer.numberOfTrailingZeros(free);
+                        return (found < numblocks) ? found : -1;
+                    }
+                    blknum += Integer.SIZE - bit % Integer.SIZE;
+                }
+            } finally {
+                tx.unpin(mapblk);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Record that the specified block has no room for another record.
+     *
+     * @param blknum the number of the block
+     */
+    public void markFull(int blknum) {
+        int pagenum = blknum / blocksPerPage;
+        while (tx.currentSize(filename) <= pagenum)
+            tx.append(filename);
+        setBit(pagenum, blknum, true);
+    }
+
+    /**
+     * Record that the specified block has room for another record.
+     *
+     * @param blknum the number of the block
+     */
+    public void markFree(int blknum) {
+        int pagenum = blknum / blocksPerPage;
+        if (pagenum < tx.currentSize(filename))
+            setBit(pagenum, blknum, false);
+    }
+
+    private void setBit(int pagenum, int blknum, boolean full) {
+        BlockId mapblk = new BlockId(filename, pagenum);
+        int bit = blknum % blocksPerPage;
+        tx.pin(mapblk);
+        tx.setHintBits(mapblk, bit / Integer.SIZE * Integer.BYTES, 1 << (bit % Integer.SIZE), full);
+        tx.unpin(mapblk);
+    }
+}
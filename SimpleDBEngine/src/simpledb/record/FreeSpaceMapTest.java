@@ -0,0 +1,51 @@
+package simpledb.record;
+
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+
+public class FreeSpaceMapTest {
+    public static void main(String[] args) throws Exception {
+        SimpleDB db = new SimpleDB("freespacemaptest", 400, 8);
+        Transaction tx = db.newTx();
+
+        Schema sch = new Schema();
+        sch.addIntField("A");
+        sch.addStringField("B", 9);
+        Layout layout = new Layout(sch);
+
+        System.out.println("Filling the table with 2000 records.");
+        TableScan ts = new TableScan(tx, "T", layout);
+        for (int i = 0; i < 2000; i++) {
+            ts.insert();
+            ts.setInt("A", i);
+            ts.setString("B", "rec" + i);
+        }
+        ts.close();
+        System.out.println("The table has " + tx.size("T.tbl") + " blocks.");
+
+        System.out.println("Deleting the records in blocks 7 and 80.");
+        ts = new TableScan(tx, "T", layout);
+        while (ts.next()) {
+            int blknum = ts.getRid().blockNumber();
+            if (blknum == 7 || blknum == 80)
+                ts.delete();
+        }
+        ts.close();
+
+        System.out.println("Inserting records into a new scan.");
+        ts = new TableScan(tx, "T", layout);
+        long start = System.nanoTime();
+        for (int i = 0; i < 40; i++) {
+            ts.insert();
+            ts.setInt("A", -i);
+            ts.setString("B", "new" + i);
+            if (i % 5 == 0)
+                System.out.println("inserted into " + ts.getRid());
+        }
+        long elapsed = System.nanoTime() - start;
+        ts.close();
+        System.out.println("The table now has " + tx.size("T.tbl") + " blocks; 40 inserts took "
+                + elapsed / 1000 + " microseconds.");
+        tx.commit();
+    }
+}
@@ -3,6 +3,7 @@ package simpledb.record;
 import static java.sql.Types.INTEGER;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import simpledb.file.Page;
@@ -10,14 +11,26 @@ import simpledb.file.Page;
 /**
  * Description of the structure of a record.
  * It contains the name, type, length and offset of
- * each field of the table.
+ * each field of the table, and the record format
+ * of the table's blocks.
+ * <p>
+ * In the fixed format, every field has room for its
+ * largest value, and the offset of a field is its
+ * position within the slot.
+ * In the slotted format, the offset of a field is the
+ * position of its integer value, or of the location of its
+ * string value, within the record; the slot size is the
+ * size of the largest possible record.
  *
  * @author Edward Sciore
  */
 public class Layout {
+    public static final String FIXED = "fixed", SLOTTED = "slotted";
     private Schema schema;
     private Map<String, Integer> offsets;
+    private int[] fieldoffsets;
     private int slotsize;
+    private String format;
 
     /**
      * This constructor creates a Layout object from a schema.
@@ -29,14 +42,39 @@ public class Layout {
      * @param schema  the schema of the table's records
      */
     public Layout(Schema schema) {
+        this(schema, FIXED);
+    }
+
+    /**
+     * This constructor creates a Layout object from a schema,
+     * for the specified record format.
+     *
+     * @param schema the schema of the table's records
+     * @param format the record format, FIXED or SLOTTED
+     */
+    public Layout(Schema schema, String format) {
         this.schema = schema;
+        this.format = format;
         offsets = new HashMap<>();
-        int pos = Integer.BYTES; // leave space for the empty/inuse flag
-        for (String fldname : schema.fields()) {
-            offsets.put(fldname, pos);
-            pos += lengthInBytes(fldname);
+        if (format.equals(SLOTTED)) {
+            int pos = 0;
+            int maxlen = 0;
+            for (String fldname : schema.fields()) {
+                offsets.put(fldname, pos);
+                pos += Integer.BYTES;
+                if (schema.type(fldname) != INTEGER)
+                    maxlen += SlottedRecordPage.stringSize(Page.maxLength(schema.length(fldname)));
+            }
+            slotsize = pos + maxlen;
+        } else {
+            int pos = 0;
+            for (String fldname : schema.fields()) {
+                offsets.put(fldname, pos);
+                pos += lengthInBytes(fldname);
+            }
+            slotsize = pos;
         }
-        slotsize = pos;
+        fieldoffsets = indexOffsets();
     }
 
     /**
@@ -50,9 +88,24 @@ public class Layout {
      * @param recordlen the already-calculated length of each record
      */
     public Layout(Schema schema, Map<String, Integer> offsets, int slotsize) {
+        this(schema, offsets, slotsize, FIXED);
+    }
+
+    /**
+     * Create a Layout object from the specified metadata,
+     * including the record format.
+     *
+     * @param schema   the schema of the table's records
+     * @param offsets  the already-calculated offsets of the fields within a record
+     * @param slotsize the already-calculated length of each record
+     * @param format   the record format, FIXED or SLOTTED
+     */
+    public Layout(Schema schema, Map<String, Integer> offsets, int slotsize, String format) {
         this.schema = schema;
         this.offsets = offsets;
         this.slotsize = slotsize;
+        this.format = format;
+        fieldoffsets = indexOffsets();
     }
 
     /**
@@ -74,6 +127,17 @@ public class Layout {
         return offsets.get(fldname);
     }
 
+    /**
+     * Return the offset of the field having the specified
+     * index in the schema, without looking up its name.
+     *
+     * @param fldindex the index of the field
+     * @return the offset of that field within a record
+     */
+    public int offset(int fldindex) {
+        return fieldoffsets[fldindex];
+    }
+
     /**
      * Return the size of a slot, in bytes.
      *
@@ -83,6 +147,23 @@ public class Layout {
         return slotsize;
     }
 
+    /**
+     * Return the record format of the table's blocks.
+     *
+     * @return FIXED or SLOTTED
+     */
+    public String format() {
+        return format;
+    }
+
+    private int[] indexOffsets() {
+        List<String> fields = schema.fields();
+        int[] result = new int[fields.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = offsets.get(fields.get(i));
+        return result;
+    }
+
     private int lengthInBytes(String fldname) {
         int fldtype = schema.type(fldname);
         if (fldtype == INTEGER)
@@ -1,26 +1,31 @@
 package simpledb.record;
 
-import static java.sql.Types.INTEGER;
-
 import simpledb.file.BlockId;
 import simpledb.tx.Transaction;
 
 /**
- * Store a record at a given location in a block.
+ * The interface implemented by the record formats of a block.
+ * A block holds records in numbered slots; a record keeps
+ * its slot for as long as it exists.
  *
  * @author Edward Sciore
  */
-public class RecordPage {
-    public static final int EMPTY = 0, USED = 1;
-    private Transaction tx;
-    private BlockId blk;
-    private Layout layout;
-
-    public RecordPage(Transaction tx, BlockId blk, Layout layout) {
-        this.tx = tx;
-        this.blk = blk;
-        this.layout = layout;
-        tx.pin(blk);
+public interface RecordPage {
+
+    /**
+     * Open the specified block, in the record format of the layout.
+     * The block is pinned.
+     *
+     * @param tx     the calling transaction
+     * @param blk    a reference to the disk block
+     * @param layout the layout of the table's records
+     * @return the record page for the block
+     */
+    static RecordPage open(Transaction tx, BlockId blk, Layout layout) {
+        if (layout.format().equals(Layout.SLOTTED))
+            return new SlottedRecordPage(tx, blk, layout);
+        else
+            return new FixedRecordPage(tx, blk, layout);
     }
 
     /**
@@ -30,10 +35,7 @@ public class RecordPage {
      * @param fldname the name of the field.
      * @return the integer stored in that field
      */
-    public int getInt(int slot, String fldname) {
-        int fldpos = offset(slot) + layout.offset(fldname);
-        return tx.getInt(blk, fldpos);
-    }
+    int getInt(int slot, String fldname);
 
     /**
      * Return the string value stored for the
@@ -42,10 +44,7 @@ public class RecordPage {
      * @param fldname the name of the field.
      * @return the string stored in that field
      */
-    public String getString(int slot, String fldname) {
-        int fldpos = offset(slot) + layout.offset(fldname);
-        return tx.getString(blk, fldpos);
-    }
+    String getString(int slot, String fldname);
 
     /**
      * Store an integer at the specified field
@@ -54,10 +53,7 @@ public class RecordPage {
      * @param fldname the name of the field
      * @param val     the integer value stored in that field
      */
-    public void setInt(int slot, String fldname, int val) {
-        int fldpos = offset(slot) + layout.offset(fldname);
-        tx.setInt(blk, fldpos, val, true);
-    }
+    void setInt(int slot, String fldname, int val);
 
     /**
      * Store a string at the specified field
@@ -66,83 +62,81 @@ public class RecordPage {
      * @param fldname the name of the field
      * @param val     the string value stored in that field
      */
-    public void setString(int slot, String fldname, String val) {
-        int fldpos = offset(slot) + layout.offset(fldname);
-        tx.setString(blk, fldpos, val, true);
-    }
-
-    public void delete(int slot) {
-        setFlag(slot, EMPTY);
-    }
+    void setString(int slot, String fldname, String val);
 
     /**
-     * Use the layout to format a new block of records.
-     * These values should not be logged
-     * (because the old values are meaningless).
+     * Return the integer value stored for the
+     * field having the specified index in the schema.
+     *
+     * @param fldindex the index of the field
+     * @return the integer stored in that field
      */
-    public void format() {
-        int slot = 0;
-        while (isValidSlot(slot)) {
-            tx.setInt(blk, offset(slot), EMPTY, false);
-            Schema sch = layout.schema();
-            for (String fldname : sch.fields()) {
-                int fldpos = offset(slot) + layout.offset(fldname);
-                if (sch.type(fldname) == INTEGER)
-                    tx.setInt(blk, fldpos, 0, false);
-                else
-                    tx.setString(blk, fldpos, "", false);
-            }
-            slot++;
-        }
-    }
+    int getInt(int slot, int fldindex);
 
-    public int nextAfter(int slot) {
-        return searchAfter(slot, USED);
-    }
+    /**
+     * Return the string value stored for the
+     * field having the specified index in the schema.
+     *
+     * @param fldindex the index of the field
+     * @return the string stored in that field
+     */
+    String getString(int slot, int fldindex);
 
-    public int insertAfter(int slot) {
-        int newslot = searchAfter(slot, EMPTY);
-        if (newslot >= 0)
-            setFlag(newslot, USED);
-        return newslot;
-    }
+    /**
+     * Store an integer at the field having
+     * the specified index in the schema.
+     *
+     * @param fldindex the index of the field
+     * @param val      the integer value stored in that field
+     */
+    void setInt(int slot, int fldindex, int val);
 
-    public BlockId block() {
-        return blk;
-    }
+    /**
+     * Store a string at the field having
+     * the specified index in the schema.
+     *
+     * @param fldindex the index of the field
+     * @param val      the string value stored in that field
+     */
+    void setString(int slot, int fldindex, String val);
 
-    // Private auxiliary methods
+    /**
+     * Delete the record in the specified slot.
+     *
+     * @param slot the slot of the record
+     */
+    void delete(int slot);
 
     /**
-     * Set the record's empty/inuse flag.
+     * Format a new block of records.
+     * These values should not be logged
+     * (because the old values are meaningless).
      */
-    private void setFlag(int slot, int flag) {
-        tx.setInt(blk, offset(slot), flag, true);
-    }
+    void format();
 
-    private int searchAfter(int slot, int flag) {
-        slot++;
-        while (isValidSlot(slot)) {
-            if (tx.getInt(blk, offset(slot)) == flag)
-                return slot;
-            slot++;
-        }
-        return -1;
-    }
+    /**
+     * Return the first used slot after the specified one,
+     * or -1 if there is none.
+     *
+     * @param slot a slot, or -1 for the start of the block
+     * @return the next used slot
+     */
+    int nextAfter(int slot);
 
-    private boolean isValidSlot(int slot) {
-        return offset(slot + 1) <= tx.blockSize();
-    }
+    /**
+     * Make the first empty slot after the specified one
+     * a used slot, and return it; return -1 if the block
+     * has no room for another record.
+     *
+     * @param slot a slot, or -1 for the start of the block
+     * @return the newly used slot
+     */
+    int insertAfter(int slot);
 
-    private int offset(int slot) {
-        return slot * layout.slotSize();
-    }
+    /**
+     * Return the block that this page holds.
+     *
+     * @return a reference to the disk block
+     */
+    BlockId block();
 }
-
-
-
-
-
-
-
-
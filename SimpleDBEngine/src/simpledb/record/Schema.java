@@ -13,12 +13,16 @@ import java.util.Map;
  * A schema contains the name and type of
  * each field of the table, as well as the length
  * of each varchar field.
+ * Each field also has an index, which is its position
+ * in the schema; callers that read many records can
+ * look a field up by its index instead of by its name.
  *
  * @author Edward Sciore
  */
 public class Schema {
     private List<String> fields = new ArrayList<>();
     private Map<String, FieldInfo> info = new HashMap<>();
+    private List<FieldInfo> byIndex = new ArrayList<>();
 
     /**
      * Add a field to the schema having a specified
@@ -31,8 +35,10 @@ public class Schema {
      * @param length  the conceptual length of a string field.
      */
     public void addField(String fldname, int type, int length) {
+        FieldInfo fi = new FieldInfo(type, length, fields.size());
         fields.add(fldname);
-        info.put(fldname, new FieldInfo(type, length));
+        byIndex.add(fi);
+        info.put(fldname, fi);
     }
 
     /**
@@ -100,7 +106,19 @@ public class Schema {
      * @return true if the field is in the schema
      */
     public boolean hasField(String fldname) {
-        return fields.contains(fldname);
+        return info.containsKey(fldname);
+    }
+
+    /**
+     * Return the index of the specified field,
+     * which is its position in the list of fields.
+     *
+     * @param fldname the name of the field
+     * @return the index of the field, or -1 if it is not in the schema
+     */
+    public int index(String fldname) {
+        FieldInfo fi = info.get(fldname);
+        return (fi == null) ? -1 : fi.index;
     }
 
     /**
@@ -114,6 +132,16 @@ public class Schema {
         return info.get(fldname).type;
     }
 
+    /**
+     * Return the type of the field having the specified index.
+     *
+     * @param fldindex the index of the field
+     * @return the integer type of the field
+     */
+    public int type(int fldindex) {
+        return byIndex.get(fldindex).type;
+    }
+
     /**
      * Return the conceptual length of the specified field.
      * If the field is not a string field, then
@@ -127,11 +155,12 @@ public class Schema {
     }
 
     class FieldInfo {
-        int type, length;
+        int type, length, index;
 
-        public FieldInfo(int type, int length) {
+        public FieldInfo(int type, int length, int index) {
             this.type = type;
             this.length = length;
+            this.index = index;
         }
     }
 }
@@ -0,0 +1,452 @@
+package simpledb.record;
+
+import static java.sql.Types.INTEGER;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import simpledb.file.BlockId;
+import simpledb.file.Page;
+import simpledb.tx.Transaction;
+
+/**
+ * Store variable-length records in a block.
+ * The block begins with a header holding the number of slots
+ * and the start of the record area, followed by the slot
+ * directory, which holds the offset and length of the
+ * record in each slot; an offset of 0 marks an empty slot.
+ * Records are allocated from the end of the block
+ * towards the slot directory.
+ * <p>
+ * A record begins with an integer for each field, holding
+ * the value of an integer field, or the position of the
+ * value of a string field within the record.
+ * The strings follow, each taking only the space its value needs.
+ * A string that no longer fits moves its record to the free
+ * space of the block, compacting the block if necessary.
+ * If the block has no room for the record at all, the record
+ * is moved to another block, and its slot is left pointing at it:
+ * the slot then holds the negated block number (less one) in place
+ * of the offset, and the record's slot in that block in place of
+ * the length. A record that has been moved into a block has a
+ * negated length, and is skipped by scans of that block.
+ * Either way the record keeps its slot, so its RID does not change.
+ * <p>
+ * A record is inserted only if the block has room for the
+ * largest possible record, so that setting the fields of a
+ * new record does not move it out of the block.
+ * Records are written an integer at a time, so that the log
+ * holds the previous contents of every byte that is overwritten.
+ * Reads go directly to the block's page, which is locked and
+ * looked up on the first read; writes go through the transaction.
+ *
+ * @author Edward Sciore
+ */
+public class SlottedRecordPage implements RecordPage {
+    private static final int NUMSLOTS = 0, RECORDSTART = Integer.BYTES;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int SLOT_SIZE = 2 * Integer.BYTES; // the record's offset and length
+    private Transaction tx;
+    private BlockId blk;
+    private Layout layout;
+    private Page page;
+
+    public SlottedRecordPage(Transaction tx, BlockId blk, Layout layout) {
+        this.tx = tx;
+        this.blk = blk;
+        this.layout = layout;
+        tx.pin(blk);
+    }
+
+    public int getInt(int slot, String fldname) {
+        return getInt(slot, layout.schema().index(fldname));
+    }
+
+    public String getString(int slot, String fldname) {
+        return getString(slot, layout.schema().index(fldname));
+    }
+
+    public void setInt(int slot, String fldname, int val) {
+        setInt(slot, layout.schema().index(fldname), val);
+    }
+
+    public void setString(int slot, String fldname, String val) {
+        setString(slot, layout.schema().index(fldname), val);
+    }
+
+    public int getInt(int slot, int fldindex) {
+        int recpos = recordOffset(slot);
+        if (recpos < 0)
+            return moved(slot, (rp, s) -> rp.getInt(s, fldindex));
+        return page().getInt(recpos + layout.offset(fldindex));
+    }
+
+    public String getString(int slot, int fldindex) {
+        int recpos = recordOffset(slot);
+        if (recpos < 0)
+            return moved(slot, (rp, s) -> rp.getString(s, fldindex));
+        int strpos = page().getInt(recpos + layout.offset(fldindex));
+        return page().getString(recpos + strpos);
+    }
+
+    public void setInt(int slot, int fldindex, int val) {
+        int recpos = recordOffset(slot);
+        if (recpos < 0)
+            moved(slot, (rp, s) -> {
+                rp.setInt(s, fldindex, val);
+                return null;
+            });
+        else
+            tx.setInt(blk, recpos + layout.offset(fldindex), val, true);
+    }
+
+    /**
+     * Store a string at the specified field
+     * of the specified slot.
+     * The string overwrites the previous value if it fits
+     * in its space; otherwise the record is rewritten elsewhere
+     * in its block, or else in another block.
+     *
+     * @param fldindex the index of the field
+     * @param val      the string value stored in that field
+     */
+    public void setString(int slot, int fldindex, String val) {
+        if (recordOffset(slot) < 0) {
+            List<Object> vals = moved(slot, (rp, s) -> {
+                if (rp.update(s, fldindex, val))
+                    return null;
+                List<Object> newvals = rp.values(s, fldindex, val);
+                rp.setSlot(s, 0, 0);
+                return newvals;
+            });
+            if (vals != null)
+                forward(slot, vals);
+        } else if (!update(slot, fldindex, val))
+            forward(slot, values(slot, fldindex, val));
+    }
+
+    public void delete(int slot) {
+        if (recordOffset(slot) < 0)
+            moved(slot, (rp, s) -> {
+                rp.setSlot(s, 0, 0);
+                return null;
+            });
+        setSlot(slot, 0, 0);
+    }
+
+    public void format() {
+        tx.setInt(blk, NUMSLOTS, 0, false);
+        tx.setInt(blk, RECORDSTART, tx.blockSize(), false);
+    }
+
+    public int nextAfter(int slot) {
+        int numslots = numSlots();
+        for (int s = slot + 1; s < numslots; s++) {
+            int recpos = recordOffset(s);
+            if (recpos < 0 || (recpos > 0 && recordLength(s) > 0))
+                return s;
+        }
+        return -1;
+    }
+
+    public int insertAfter(int slot) {
+        int numslots = numSlots();
+        int newslot = slot + 1;
+        while (newslot < numslots && recordOffset(newslot) != 0)
+            newslot++;
+        List<Object> vals = new ArrayList<>();
+        Schema sch = layout.schema();
+        for (String fldname : sch.fields())
+            vals.add(sch.type(fldname) == INTEGER ? (Object) 0 : "");
+        return insert(newslot, vals, layout.slotSize(), false);
+    }
+
+    public BlockId block() {
+        return blk;
+    }
+
+    /**
+     * Return the number of bytes that a string value
+     * of the specified size takes in a record, including
+     * its length; strings are padded to a whole number of integers.
+     *
+     * @param nbytes the size of the string value, including its length
+     * @return the space taken by the value
+     */
+    static int stringSize(int nbytes) {
+        return (nbytes + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+    }
+
+    // Private auxiliary methods
+
+    private Page page() {
+        if (page == null)
+            page = tx.readPage(blk);
+        return page;
+    }
+
+    private int numSlots() {
+        return page().getInt(NUMSLOTS);
+    }
+
+    /**
+     * Return the start of the record area.
+     * A block that was appended but never formatted is empty.
+     */
+    private int recordStart() {
+        int start = page().getInt(RECORDSTART);
+        return (start == 0) ? tx.blockSize() : start;
+    }
+
+    private int recordOffset(int slot) {
+        return page().getInt(HEADER_SIZE + slot * SLOT_SIZE);
+    }
+
+    private int recordLength(int slot) {
+        return page().getInt(HEADER_SIZE + slot * SLOT_SIZE + Integer.BYTES);
+    }
+
+    private void setSlot(int slot, int offset, int length) {
+        tx.setInt(blk, HEADER_SIZE + slot * SLOT_SIZE, offset, true);
+        tx.setInt(blk, HEADER_SIZE + slot * SLOT_SIZE + Integer.BYTES, length, true);
+    }
+
+    private int directorySize(int numslots) {
+        return HEADER_SIZE + numslots * SLOT_SIZE;
+    }
+
+    /**
+     * Apply the function to the block and slot to which
+     * the record of the specified slot has been moved.
+     */
+    private <T> T moved(int slot, BiFunction<SlottedRecordPage, Integer, T> fn) {
+        BlockId target = new BlockId(blk.fileName(), -recordOffset(slot) - 1);
+        SlottedRecordPage rp = new SlottedRecordPage(tx, target, layout);
+        try {
+            return fn.apply(rp, recordLength(slot));
+        } finally {
+            tx.unpin(target);
+        }
+    }
+
+    /**
+     * Move the record of the slot to another block,
+     * and point the slot at it.
+     * The record goes to the last block of the file if
+     * that block has room for it, and to a new block otherwise.
+     */
+    private void forward(int slot, List<Object> vals) {
+        String filename = blk.fileName();
+        int last = tx.currentSize(filename) - 1;
+        BlockId target = new BlockId(filename, last);
+        int newslot = (last == blk.number()) ? -1 : insertMovedRecord(target, vals);
+        if (newslot < 0) {
+            target = tx.append(filename);
+            new SlottedRecordPage(tx, target, layout).format();
+            tx.unpin(target);
+            newslot = insertMovedRecord(target, vals);
+        }
+        setSlot(slot, -target.number() - 1, newslot);
+    }
+
+    private int insertMovedRecord(BlockId target, List<Object> vals) {
+        SlottedRecordPage rp = new SlottedRecordPage(tx, target, layout);
+        try {
+            int newslot = 0;
+            int numslots = rp.numSlots();
+            while (newslot < numslots && rp.recordOffset(newslot) != 0)
+                newslot++;
+            return rp.insert(newslot, vals, rp.recordSize(vals), true);
+        } finally {
+            tx.unpin(target);
+        }
+    }
+
+    /**
+     * Write a new record into the specified empty slot, if the
+     * block has room for a record of the specified size.
+     *
+     * @return the slot, or -1 if the block has no room
+     */
+    private int insert(int newslot, List<Object> vals, int room, boolean movedin) {
+        int numslots = numSlots();
+        int dirsize = directorySize(Math.max(numslots, newslot + 1));
+        if (recordStart() - dirsize < room) {
+            if (tx.blockSize() - dirsize - liveBytes(-1) < room)
+                return -1;
+            compact(-1);
+        }
+        if (newslot == numslots)
+            tx.setInt(blk, NUMSLOTS, numslots + 1, true);
+        writeRecord(newslot, recordStart(), vals, movedin);
+        return newslot;
+    }
+
+    /**
+     * Store the string in the record of the slot, within
+     * this block. The method returns false, having changed
+     * nothing, if the record would no longer fit in the block.
+     */
+    private boolean update(int slot, int fldindex, String val) {
+        int recpos = recordOffset(slot);
+        int strpos = page().getInt(recpos + layout.offset(fldindex));
+        int needed = Integer.BYTES + val.getBytes(Page.CHARSET).length;
+        if (needed <= stringSpace(slot, recpos, strpos)) {
+            tx.setString(blk, recpos + strpos, val, true);
+            return true;
+        }
+        return moveRecord(slot, values(slot, fldindex, val));
+    }
+
+    /**
+     * Return the space available to the string at the
+     * specified position of the record: the space up to the
+     * next string of the record, or to the end of the record.
+     */
+    private int stringSpace(int slot, int recpos, int strpos) {
+        int end = Math.abs(recordLength(slot));
+        Schema sch = layout.schema();
+        for (int i = 0; i < sch.fields().size(); i++)
+            if (sch.type(i) != INTEGER) {
+                int pos = page().getInt(recpos + layout.offset(i));
+                if (pos > strpos && pos < end)
+                    end = pos;
+            }
+        return end - strpos;
+    }
+
+    /**
+     * Return the values of the record of the slot, which
+     * is in this block, with a new value for the specified field.
+     */
+    private List<Object> values(int slot, int fldindex, String val) {
+        List<Object> vals = values(recordOffset(slot));
+        vals.set(fldindex, val);
+        return vals;
+    }
+
+    private List<Object> values(int recpos) {
+        List<Object> vals = new ArrayList<>();
+        Schema sch = layout.schema();
+        for (int i = 0; i < sch.fields().size(); i++) {
+            int fldpos = recpos + layout.offset(i);
+            if (sch.type(i) == INTEGER)
+                vals.add(page().getInt(fldpos));
+            else
+                vals.add(page().getString(recpos + page().getInt(fldpos)));
+        }
+        return vals;
+    }
+
+    private int recordSize(List<Object> vals) {
+        int size = vals.size() * Integer.BYTES;
+        for (Object val : vals)
+            if (val instanceof String)
+                size += stringSize(Integer.BYTES + ((String) val).getBytes(Page.CHARSET).length);
+        return size;
+    }
+
+    private int liveBytes(int exceptslot) {
+        int live = 0;
+        int numslots = numSlots();
+        for (int s = 0; s < numslots; s++)
+            if (s != exceptslot && recordOffset(s) > 0)
+                live += Math.abs(recordLength(s));
+        return live;
+    }
+
+    /**
+     * Rewrite the record of the slot with the specified values,
+     * within this block.
+     * If the record is the first one of the record area, its
+     * space is reused; otherwise it becomes free space that
+     * is reclaimed when the block is compacted.
+     *
+     * @return false if the block has no room for the record
+     */
+    private boolean moveRecord(int slot, List<Object> vals) {
+        int size = recordSize(vals);
+        int recpos = recordOffset(slot);
+        int length = recordLength(slot);
+        int start = recordStart();
+        if (recpos == start)
+            start += Math.abs(length);
+        int dirsize = directorySize(numSlots());
+        if (start - dirsize < size) {
+            if (tx.blockSize() - dirsize - liveBytes(slot) < size)
+                return false;
+            compact(slot);
+            start = recordStart();
+        }
+        writeRecord(slot, start, vals, length < 0);
+        return true;
+    }
+
+    /**
+     * Move the records of the block, except for the record
+     * of the specified slot, to the end of the block,
+     * so that the free space between them is reclaimed.
+     */
+    private void compact(int exceptslot) {
+        List<Integer> slots = new ArrayList<>();
+        List<List<Object>> records = new ArrayList<>();
+        int numslots = numSlots();
+        for (int s = 0; s < numslots; s++) {
+            int recpos = recordOffset(s);
+            if (s != exceptslot && recpos > 0) {
+                slots.add(s);
+                records.add(values(recpos));
+            }
+        }
+        int start = tx.blockSize();
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            start = writeRecord(slot, start, records.get(i), recordLength(slot) < 0);
+        }
+        tx.setInt(blk, RECORDSTART, start, true);
+    }
+
+    /**
+     * Write the values of a record just below the specified
+     * position, and point the slot at the record.
+     *
+     * @return the new start of the record area
+     */
+    private int writeRecord(int slot, int end, List<Object> vals, boolean movedin) {
+        int size = recordSize(vals);
+        int recpos = end - size;
+        int strpos = vals.size() * Integer.BYTES;
+        for (int i = 0; i < vals.size(); i++) {
+            int fldpos = recpos + layout.offset(i);
+            Object val = vals.get(i);
+            if (val instanceof String) {
+                tx.setInt(blk, fldpos, strpos, true);
+                strpos += writeString(recpos + strpos, (String) val);
+            } else
+                tx.setInt(blk, fldpos, (Integer) val, true);
+        }
+        setSlot(slot, recpos, movedin ? -size : size);
+        if (recpos < recordStart())
+            tx.setInt(blk, RECORDSTART, recpos, true);
+        return recpos;
+    }
+
+    /**
+     * Write the string at the specified position, as its
+     * length followed by its bytes, an integer at a time.
+     *
+     * @return the space taken by the string
+     */
+    private int writeString(int pos, String val) {
+        byte[] b = val.getBytes(Page.CHARSET);
+        tx.setInt(blk, pos, b.length, true);
+        for (int i = 0; i < b.length; i += Integer.BYTES) {
+            int word = 0;
+            for (int j = i; j < i + Integer.BYTES; j++)
+                word = (word << 8) | (j < b.length ? b[j] & 0xff : 0);
+            tx.setInt(blk, pos + Integer.BYTES + i, word, true);
+        }
+        return stringSize(Integer.BYTES + b.length);
+    }
+}
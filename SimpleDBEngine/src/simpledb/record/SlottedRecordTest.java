@@ -0,0 +1,60 @@
+package simpledb.record;
+
+import simpledb.file.BlockId;
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+
+public class SlottedRecordTest {
+    public static void main(String[] args) throws Exception {
+        SimpleDB db = new SimpleDB("slottedrecordtest", 400, 8);
+        Transaction tx = db.newTx();
+
+        Schema sch = new Schema();
+        sch.addIntField("A");
+        sch.addStringField("B", 100);
+        Layout fixed = new Layout(sch);
+        Layout slotted = new Layout(sch, Layout.SLOTTED);
+        System.out.println("Fixed slot size " + fixed.slotSize()
+                + ", largest slotted record " + slotted.slotSize());
+
+        BlockId blk = tx.append("testfile");
+        RecordPage rp = RecordPage.open(tx, blk, slotted);
+        rp.format();
+
+        System.out.println("Filling the page with short records.");
+        int count = 0;
+        int slot = rp.insertAfter(-1);
+        while (slot >= 0) {
+            rp.setInt(slot, "A", slot);
+            rp.setString(slot, "B", "rec" + slot);
+            count++;
+            slot = rp.insertAfter(slot);
+        }
+        System.out.println(count + " records fit, where the fixed format fits "
+                + (tx.blockSize() / fixed.slotSize()) + ".");
+
+        System.out.println("Deleting the even records, and growing the odd ones.");
+        slot = rp.nextAfter(-1);
+        while (slot >= 0) {
+            if (rp.getInt(slot, "A") % 2 == 0)
+                rp.delete(slot);
+            else
+                rp.setString(slot, "B", "a much longer value for record " + slot);
+            slot = rp.nextAfter(slot);
+        }
+
+        System.out.println("Here are the remaining records.");
+        boolean ok = true;
+        slot = rp.nextAfter(-1);
+        while (slot >= 0) {
+            int a = rp.getInt(slot, "A");
+            String b = rp.getString(slot, "B");
+            ok = ok && a == slot && b.equals("a much longer value for record " + slot);
+            System.out.println("slot " + slot + ": {" + a + ", " + b + "}");
+            slot = rp.nextAfter(slot);
+        }
+        System.out.println(ok ? "All records are intact." : "Some records are wrong.");
+        tx.unpin(blk);
+        tx.commit();
+    }
+}
@@ -0,0 +1,58 @@
+package simpledb.record;
+
+import simpledb.query.Batch;
+import simpledb.query.BatchScan;
+import simpledb.tx.Transaction;
+
+/**
+ * The batch scan of a table.
+ * Each batch holds the next records of the table,
+ * copied column by column from the record pages.
+ *
+ * @author Edward Sciore
+ */
+public class TableBatchScan implements BatchScan {
+    private TableScan ts;
+    private Batch batch;
+    private boolean done = false;
+
+    /**
+     * Create a batch scan of the specified table.
+     *
+     * @param tx      the calling transaction
+     * @param tblname the name of the table
+     * @param layout  the layout of the table's records
+     */
+    public TableBatchScan(Transaction tx, String tblname, Layout layout) {
+        ts = new TableScan(tx, tblname, layout);
+        batch = new Batch(layout.schema());
+    }
+
+    public void beforeFirst() {
+        ts.beforeFirst();
+        done = false;
+    }
+
+    public Batch nextBatch() {
+        if (done)
+            return null;
+        int n = ts.readBatch(batch);
+        done = n < Batch.CAPACITY;
+        if (n == 0)
+            return null;
+        batch.setSize(n);
+        return batch;
+    }
+
+    public int fieldIndex(String fldname) {
+        return batch.fieldIndex(fldname);
+    }
+
+    public boolean hasField(String fldname) {
+        return batch.schema().hasField(fldname);
+    }
+
+    public void close() {
+        ts.close();
+    }
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import simpledb.file.BlockId;
+import simpledb.query.Batch;
 import simpledb.query.Constant;
 import simpledb.query.UpdateScan;
 import simpledb.tx.Transaction;
@@ -13,6 +14,17 @@ import simpledb.tx.Transaction;
 /**
  * Provides the abstraction of an arbitrarily large array
  * of records.
+ * <p>
+ * The scan reads the locked size of the file only when
+ * it reaches the last block, so that only a scan that sees
+ * the end of the file keeps other transactions from
+ * appending to it. Inserting a record does not depend on
+ * where the file ends, and uses the unlocked size.
+ * <p>
+ * A new record goes into the current block if it has room,
+ * and otherwise into the first block that the table's
+ * free-space map says may have room; a block is appended
+ * only when no block has room.
  *
  * @author sciore
  */
@@ -21,25 +33,31 @@ public class TableScan implements UpdateScan {
     private Layout layout;
     private RecordPage rp;
     private String filename;
+    private FreeSpaceMap fsm;
     private int currentslot;
 
     public TableScan(Transaction tx, String tblname, Layout layout) {
         this.tx = tx;
         this.layout = layout;
         filename = tblname + ".tbl";
-        if (tx.size(filename) == 0)
-            moveToNewBlock();
-        else
-            moveToBlock(0);
+        fsm = new FreeSpaceMap(tx, tblname);
+        currentslot = -1;
     }
 
     // Methods that implement Scan
 
     public void beforeFirst() {
-        moveToBlock(0);
+        close();
+        rp = null;
+        currentslot = -1;
     }
 
     public boolean next() {
+        if (rp == null) {
+            if (tx.currentSize(filename) == 0 && tx.size(filename) == 0)
+                return false;
+            moveToBlock(0);
+        }
         currentslot = rp.nextAfter(currentslot);
         while (currentslot < 0) {
             if (atLastBlock())
@@ -59,10 +77,32 @@ public class TableScan implements UpdateScan {
     }
 
     public Constant getVal(String fldname) {
-        if (layout.schema().type(fldname) == INTEGER)
-            return new Constant(getInt(fldname));
+        return getVal(fieldIndex(fldname));
+    }
+
+    /**
+     * Return the index of the field in the table's schema.
+     */
+    public int fieldIndex(String fldname) {
+        int fldindex = layout.schema().index(fldname);
+        if (fldindex < 0)
+            throw new RuntimeException("field " + fldname + " not found.");
+        return fldindex;
+    }
+
+    public int getInt(int fldindex) {
+        return rp.getInt(currentslot, fldindex);
+    }
+
+    public String getString(int fldindex) {
+        return rp.getString(currentslot, fldindex);
+    }
+
+    public Constant getVal(int fldindex) {
+        if (layout.schema().type(fldindex) == INTEGER)
+            return Constant.of(getInt(fldindex));
         else
-            return new Constant(getString(fldname));
+            return new Constant(getString(fldindex));
     }
 
     /**
@@ -79,6 +119,30 @@ public class TableScan implements UpdateScan {
         return values;
     }
 
+    /**
+     * Read the following records into the batch,
+     * until the batch is full or the table has no more.
+     * The columns of the batch are the fields of the
+     * table's schema, in order.
+     *
+     * @param b the batch
+     * @return the number of records read
+     */
+    int readBatch(Batch b) {
+        int numcols = layout.schema().fields().size();
+        int n = 0;
+        while (n < Batch.CAPACITY && next()) {
+            for (int col = 0; col < numcols; col++) {
+                if (b.isInt(col))
+                    b.ints(col)[n] = rp.getInt(currentslot, col);
+                else
+                    b.strings(col)[n] = rp.getString(currentslot, col);
+            }
+            n++;
+        }
+        return n;
+    }
+
     public boolean hasField(String fldname) {
         return layout.schema().hasField(fldname);
     }
@@ -99,31 +163,58 @@ public class TableScan implements UpdateScan {
     }
 
     public void setVal(String fldname, Constant val) {
-        if (layout.schema().type(fldname) == INTEGER)
-            setInt(fldname, val.asInt());
+        setVal(fieldIndex(fldname), val);
+    }
+
+    public void setInt(int fldindex, int val) {
+        rp.setInt(currentslot, fldindex, val);
+    }
+
+    public void setString(int fldindex, String val) {
+        rp.setString(currentslot, fldindex, val);
+    }
+
+    public void setVal(int fldindex, Constant val) {
+        if (layout.schema().type(fldindex) == INTEGER)
+            setInt(fldindex, val.asInt());
         else
-            setString(fldname, val.asString());
+            setString(fldindex, val.asString());
     }
 
     public void insert() {
-        currentslot = rp.insertAfter(currentslot);
-        while (currentslot < 0) {
-            if (atLastBlock())
-                moveToNewBlock();
-            else
-                moveToBlock(rp.block().number() + 1);
+        if (rp != null) {
             currentslot = rp.insertAfter(currentslot);
+            if (currentslot >= 0)
+                return;
         }
+        // the current block is unpinned while the map is read,
+        // so that an insertion pins at most one buffer at a time
+        close();
+        rp = null;
+        int blknum = fsm.nextFree(0, tx.currentSize(filename));
+        while (blknum >= 0) {
+            moveToBlock(blknum);
+            currentslot = rp.insertAfter(currentslot);
+            if (currentslot >= 0)
+                return;
+            close();
+            rp = null;
+            fsm.markFull(blknum);
+            blknum = fsm.nextFree(blknum + 1, tx.currentSize(filename));
+        }
+        moveToNewBlock();
+        currentslot = rp.insertAfter(currentslot);
     }
 
     public void delete() {
         rp.delete(currentslot);
+        fsm.markFree(rp.block().number());
     }
 
     public void moveToRid(RID rid) {
         close();
         BlockId blk = new BlockId(filename, rid.blockNumber());
-        rp = new RecordPage(tx, blk, layout);
+        rp = RecordPage.open(tx, blk, layout);
         currentslot = rid.slot();
     }
 
@@ -136,19 +227,26 @@ public class TableScan implements UpdateScan {
     private void moveToBlock(int blknum) {
         close();
         BlockId blk = new BlockId(filename, blknum);
-        rp = new RecordPage(tx, blk, layout);
+        rp = RecordPage.open(tx, blk, layout);
         currentslot = -1;
     }
 
     private void moveToNewBlock() {
         close();
         BlockId blk = tx.append(filename);
-        rp = new RecordPage(tx, blk, layout);
+        rp = RecordPage.open(tx, blk, layout);
         rp.format();
         currentslot = -1;
     }
 
+    /**
+     * Return true if the current block is the last one.
+     * The locked size of the file is read only once the
+     * unlocked size says that there are no more blocks.
+     */
     private boolean atLastBlock() {
-        return rp.block().number() == tx.size(filename) - 1;
+        int blknum = rp.block().number();
+        return blknum >= tx.currentSize(filename) - 1
+                && blknum >= tx.size(filename) - 1;
     }
 }
@@ -3,7 +3,10 @@ package simpledb.server;
 import java.io.File;
 
 import simpledb.buffer.BufferMgr;
+import simpledb.buffer.ReplacementPolicy;
 import simpledb.file.FileMgr;
+import simpledb.file.MappedFileMgr;
+import simpledb.file.PositionalFileMgr;
 import simpledb.index.planner.IndexUpdatePlanner;
 import simpledb.log.LogMgr;
 import simpledb.metadata.MetadataMgr;
@@ -12,6 +15,8 @@ import simpledb.plan.Planner;
 import simpledb.plan.QueryPlanner;
 import simpledb.plan.UpdatePlanner;
 import simpledb.tx.Transaction;
+import simpledb.tx.concurrency.ConcurrencyMgr;
+import simpledb.tx.recovery.RecoveryMgr;
 
 /**
  * The class that configures the system.
@@ -22,6 +27,20 @@ public class SimpleDB {
     public static int BLOCK_SIZE = 400;
     public static int BUFFER_SIZE = 8;
     public static String LOG_FILE = "simpledb.log";
+    public static String REPLACEMENT_POLICY = ReplacementPolicy.LRU;
+    public static int BUFFER_PARTITIONS = 1;
+    public static long WRITER_INTERVAL = 0; // in milliseconds; 0 disables the background writer
+    public static int WRITER_MAX_PAGES = 16;
+    public static String FILE_IO = "seek"; // or "positional" or "mapped"
+    public static String FILE_MODE = "rw"; // or "rws" to make every write synchronous
+    public static int LOG_BUFFER_SIZE = 1 << 20; // in bytes
+    public static int LOG_SEGMENT_SIZE = LogMgr.DEFAULT_SEGMENT_SIZE; // in bytes
+    public static long GROUP_COMMIT_WINDOW = 0; // in milliseconds; 0 disables group commit
+    public static int GROUP_COMMIT_BATCH = 16;
+    public static long CHECKPOINT_INTERVAL = 0; // in milliseconds; 0 disables periodic checkpoints
+    public static int LOCK_ESCALATION_THRESHOLD = 32; // block locks per file; 0 disables escalation
+    public static boolean FORCE_AT_COMMIT = false; // true writes a transaction's buffers before it commits
+    public static boolean BATCH_EXECUTION = false; // true executes queries a batch of records at a time
 
     private FileMgr fm;
     private BufferMgr bm;
@@ -38,9 +57,13 @@ public class SimpleDB {
      */
     public SimpleDB(String dirname, int blocksize, int buffsize) {
         File dbDirectory = new File(dirname);
-        fm = new FileMgr(dbDirectory, blocksize);
-        lm = new LogMgr(fm, LOG_FILE);
-        bm = new BufferMgr(fm, lm, buffsize);
+        RecoveryMgr.setForceAtCommit(FORCE_AT_COMMIT);
+        ConcurrencyMgr.setEscalationThreshold(LOCK_ESCALATION_THRESHOLD);
+        fm = createFileMgr(dbDirectory, blocksize);
+        lm = new LogMgr(fm, LOG_FILE, LOG_BUFFER_SIZE, LOG_SEGMENT_SIZE, GROUP_COMMIT_WINDOW, GROUP_COMMIT_BATCH);
+        bm = new BufferMgr(fm, lm, buffsize, REPLACEMENT_POLICY, BUFFER_PARTITIONS);
+        if (WRITER_INTERVAL > 0)
+            bm.startWriter(WRITER_INTERVAL, WRITER_MAX_PAGES);
     }
 
     /**
@@ -64,8 +87,23 @@ public class SimpleDB {
 //      UpdatePlanner up = new BasicUpdatePlanner(mdm);
         QueryPlanner qp = new HeuristicQueryPlanner(mdm);
         UpdatePlanner up = new IndexUpdatePlanner(mdm);
-        planner = new Planner(qp, up);
+        planner = new Planner(qp, up, BATCH_EXECUTION);
         tx.commit();
+        if (CHECKPOINT_INTERVAL > 0)
+            RecoveryMgr.startCheckpointer(lm, bm, CHECKPOINT_INTERVAL);
+    }
+
+    private FileMgr createFileMgr(File dbDirectory, int blocksize) {
+        switch (FILE_IO) {
+        case "seek":
+            return new FileMgr(dbDirectory, blocksize, FILE_MODE);
+        case "positional":
+            return new PositionalFileMgr(dbDirectory, blocksize, FILE_MODE);
+        case "mapped":
+            return new MappedFileMgr(dbDirectory, blocksize, FILE_MODE);
+        default:
+            throw new IllegalArgumentException("unknown file I/O mode " + FILE_IO);
+        }
     }
 
     /**
@@ -76,6 +114,14 @@ public class SimpleDB {
         return new Transaction(fm, lm, bm);
     }
 
+    /**
+     * Create a read-only transaction, which reads a snapshot
+     * of the database without taking any locks.
+     */
+    public Transaction newReadOnlyTx() {
+        return new Transaction(fm, lm, bm, true);
+    }
+
     public MetadataMgr mdMgr() {
         return mdm;
     }
@@ -0,0 +1,86 @@
+package simpledb.tx;
+
+import simpledb.buffer.BufferMgr;
+import simpledb.file.BlockId;
+import simpledb.file.FileMgr;
+import simpledb.log.LogMgr;
+import simpledb.server.SimpleDB;
+
+public class AppendLockTest {
+    private static FileMgr fm;
+    private static LogMgr lm;
+    private static BufferMgr bm;
+
+    public static void main(String[] args) {
+        //initialize the database system
+        SimpleDB db = new SimpleDB("appendlocktest", 400, 8);
+        fm = db.fileMgr();
+        lm = db.logMgr();
+        bm = db.bufferMgr();
+        if (fm.length("testfile") == 0)
+            fm.append("testfile");
+        new Thread(new A()).start();
+        new Thread(new B()).start();
+        new Thread(new C()).start();
+    }
+
+    // Appends two blocks, while reading an existing block.
+    static class A implements Runnable {
+        public void run() {
+            try {
+                Transaction txA = new Transaction(fm, lm, bm);
+                BlockId blk0 = new BlockId("testfile", 0);
+                txA.pin(blk0);
+                txA.getInt(blk0, 0);
+                System.out.println("Tx A: request append");
+                BlockId blk = txA.append("testfile");
+                System.out.println("Tx A: receive append");
+                Thread.sleep(1000);
+                txA.pin(blk);
+                txA.setInt(blk, 0, 1, false);
+                txA.commit();
+                System.out.println("Tx A: commit");
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    // Appends while A is active; appends do not conflict.
+    static class B implements Runnable {
+        public void run() {
+            try {
+                Thread.sleep(300);
+                Transaction txB = new Transaction(fm, lm, bm);
+                System.out.println("Tx B: request append");
+                BlockId blk = txB.append("testfile");
+                System.out.println("Tx B: receive append");
+                txB.pin(blk);
+                txB.setInt(blk, 0, 2, false);
+                txB.commit();
+                System.out.println("Tx B: commit");
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    // Reads block 0 without waiting, but must wait
+    // for A to read the size of the file.
+    static class C implements Runnable {
+        public void run() {
+            try {
+                Thread.sleep(500);
+                Transaction txC = new Transaction(fm, lm, bm);
+                BlockId blk0 = new BlockId("testfile", 0);
+                txC.pin(blk0);
+                txC.getInt(blk0, 0);
+                System.out.println("Tx C: read block 0");
+                System.out.println("Tx C: request size");
+                int size = txC.size("testfile");
+                System.out.println("Tx C: receive size " + size);
+                txC.commit();
+                System.out.println("Tx C: commit");
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+}
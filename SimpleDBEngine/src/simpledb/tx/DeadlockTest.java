@@ -0,0 +1,65 @@
+package simpledb.tx;
+
+import simpledb.buffer.BufferMgr;
+import simpledb.file.BlockId;
+import simpledb.file.FileMgr;
+import simpledb.log.LogMgr;
+import simpledb.server.SimpleDB;
+import simpledb.tx.concurrency.LockAbortException;
+
+public class DeadlockTest {
+    private static FileMgr fm;
+    private static LogMgr lm;
+    private static BufferMgr bm;
+    private static long start;
+
+    public static void main(String[] args) {
+        //initialize the database system
+        SimpleDB db = new SimpleDB("deadlocktest", 400, 8);
+        fm = db.fileMgr();
+        lm = db.logMgr();
+        bm = db.bufferMgr();
+        start = System.currentTimeMillis();
+        new Thread(new Worker("A", 1, 2)).start();
+        new Thread(new Worker("B", 2, 1)).start();
+    }
+
+    // Each worker locks its two blocks in the opposite order
+    // of the other, so that the two deadlock; the younger
+    // transaction is aborted as soon as the cycle forms.
+    static class Worker implements Runnable {
+        private String name;
+        private BlockId first, second;
+
+        Worker(String name, int first, int second) {
+            this.name = name;
+            this.first = new BlockId("testfile", first);
+            this.second = new BlockId("testfile", second);
+        }
+
+        public void run() {
+            Transaction tx = new Transaction(fm, lm, bm);
+            try {
+                tx.pin(first);
+                tx.pin(second);
+                System.out.println("Tx " + name + ": request xlock " + first.number());
+                tx.setInt(first, 0, 0, false);
+                System.out.println("Tx " + name + ": receive xlock " + first.number());
+                Thread.sleep(500);
+                System.out.println("Tx " + name + ": request xlock " + second.number());
+                tx.setInt(second, 0, 0, false);
+                System.out.println("Tx " + name + ": receive xlock " + second.number());
+                tx.commit();
+                System.out.println("Tx " + name + ": commit after " + elapsed() + " ms");
+            } catch (LockAbortException e) {
+                System.out.println("Tx " + name + ": aborted after " + elapsed() + " ms");
+                tx.rollback();
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    private static long elapsed() {
+        return System.currentTimeMillis() - start;
+    }
+}
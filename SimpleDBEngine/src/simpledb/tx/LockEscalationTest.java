@@ -0,0 +1,82 @@
+package simpledb.tx;
+
+import simpledb.buffer.BufferMgr;
+import simpledb.file.BlockId;
+import simpledb.file.FileMgr;
+import simpledb.log.LogMgr;
+import simpledb.server.SimpleDB;
+
+public class LockEscalationTest {
+    private static FileMgr fm;
+    private static LogMgr lm;
+    private static BufferMgr bm;
+
+    public static void main(String[] args) {
+        //initialize the database system
+        SimpleDB.LOCK_ESCALATION_THRESHOLD = 10;
+        SimpleDB db = new SimpleDB("lockescalationtest", 400, 8);
+        fm = db.fileMgr();
+        lm = db.logMgr();
+        bm = db.bufferMgr();
+        new Thread(new A()).start();
+        new Thread(new B()).start();
+        new Thread(new C()).start();
+    }
+
+    // Reads 20 blocks, so its block locks are escalated to a file lock.
+    static class A implements Runnable {
+        public void run() {
+            try {
+                Transaction txA = new Transaction(fm, lm, bm);
+                System.out.println("Tx A: request slocks on blocks 0-19");
+                for (int i = 0; i < 20; i++) {
+                    BlockId blk = new BlockId("testfile", i);
+                    txA.pin(blk);
+                    txA.getInt(blk, 0);
+                    txA.unpin(blk);
+                }
+                System.out.println("Tx A: receive slocks, now holds an slock on testfile");
+                Thread.sleep(1000);
+                txA.commit();
+                System.out.println("Tx A: commit");
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    // Writes a block that A never read, but A's file lock covers it.
+    static class B implements Runnable {
+        public void run() {
+            try {
+                Transaction txB = new Transaction(fm, lm, bm);
+                BlockId blk = new BlockId("testfile", 30);
+                txB.pin(blk);
+                Thread.sleep(500);
+                System.out.println("Tx B: request xlock 30");
+                txB.setInt(blk, 0, 0, false);
+                System.out.println("Tx B: receive xlock 30");
+                txB.commit();
+                System.out.println("Tx B: commit");
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    // Reads a block, which is compatible with A's file lock.
+    static class C implements Runnable {
+        public void run() {
+            try {
+                Transaction txC = new Transaction(fm, lm, bm);
+                BlockId blk = new BlockId("testfile", 5);
+                txC.pin(blk);
+                Thread.sleep(500);
+                System.out.println("Tx C: request slock 5");
+                txC.getInt(blk, 0);
+                System.out.println("Tx C: receive slock 5");
+                txC.commit();
+                System.out.println("Tx C: commit");
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+}
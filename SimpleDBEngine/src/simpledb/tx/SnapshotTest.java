@@ -0,0 +1,61 @@
+package simpledb.tx;
+
+import simpledb.file.BlockId;
+import simpledb.server.SimpleDB;
+
+public class SnapshotTest {
+    public static void main(String[] args) {
+        //initialize the database system
+        SimpleDB db = new SimpleDB("snapshottest", 400, 8);
+        BlockId blk = new BlockId("testfile", 1);
+
+        Transaction tx1 = db.newTx();
+        tx1.pin(blk);
+        tx1.setInt(blk, 80, 1, false);
+        tx1.setString(blk, 40, "one", false);
+        tx1.commit();
+
+        // tx2 holds an xlock on the block until it commits,
+        // but the read-only transactions never wait for it.
+        Transaction tx2 = db.newTx();
+        tx2.pin(blk);
+        tx2.setInt(blk, 80, 2, true);
+        tx2.setString(blk, 40, "two", true);
+
+        Transaction tx3 = db.newReadOnlyTx();
+        tx3.pin(blk);
+        print("tx3 while tx2 is active (expect 1 one):", tx3, blk);
+        tx2.commit();
+        print("tx3 after tx2 commits (expect 1 one):", tx3, blk);
+
+        Transaction tx4 = db.newReadOnlyTx();
+        tx4.pin(blk);
+        print("tx4 after tx2 commits (expect 2 two):", tx4, blk);
+
+        Transaction tx5 = db.newTx();
+        tx5.pin(blk);
+        tx5.setInt(blk, 80, 3, true);
+        tx5.rollback();
+        print("tx4 after tx5 rolls back (expect 2 two):", tx4, blk);
+
+        tx3.unpin(blk);
+        tx3.pin(blk);
+        print("tx3 after repinning (expect 1 one):", tx3, blk);
+        tx3.commit();
+        tx4.commit();
+
+        Transaction tx6 = db.newReadOnlyTx();
+        tx6.pin(blk);
+        try {
+            tx6.setInt(blk, 80, 6, true);
+            System.out.println("tx6 modified the block");
+        } catch (RuntimeException e) {
+            System.out.println("tx6 cannot modify the block: " + e.getMessage());
+        }
+        tx6.commit();
+    }
+
+    private static void print(String msg, Transaction tx, BlockId blk) {
+        System.out.println(msg + " " + tx.getInt(blk, 80) + " " + tx.getString(blk, 40));
+    }
+}
@@ -1,5 +1,8 @@
 package simpledb.tx;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import simpledb.buffer.Buffer;
 import simpledb.buffer.BufferMgr;
 import simpledb.file.BlockId;
@@ -13,6 +16,17 @@ import simpledb.tx.recovery.RecoveryMgr;
  * Provide transaction management for clients,
  * ensuring that all transactions are serializable, recoverable,
  * and in general satisfy the ACID properties.
+ * <p>
+ * A read-only transaction takes no locks; it reads
+ * the snapshot of the database that existed when it started.
+ * It writes nothing to the log, and so its commit need
+ * not wait for the disk.
+ * It may only modify temporary files, which no other
+ * transaction can see.
+ * <p>
+ * Modifications of temporary files are never logged.
+ * The files are deleted when the system starts, so
+ * recovery must not redo or undo anything in them.
  *
  * @author Edward Sciore
  */
@@ -25,6 +39,8 @@ public class Transaction {
     private FileMgr fm;
     private int txnum;
     private BufferList mybuffers;
+    private boolean readOnly;
+    private Map<BlockId, Page> snapshots = new HashMap<>();
 
     /**
      * Create a new transaction and its associated
@@ -39,24 +55,37 @@ public class Transaction {
      * is called first.
      */
     public Transaction(FileMgr fm, LogMgr lm, BufferMgr bm) {
+        this(fm, lm, bm, false);
+    }
+
+    /**
+     * Create a new transaction, which is read-only
+     * if so specified.
+     *
+     * @param readOnly whether the transaction is read-only
+     */
+    public Transaction(FileMgr fm, LogMgr lm, BufferMgr bm, boolean readOnly) {
         this.fm = fm;
         this.bm = bm;
+        this.readOnly = readOnly;
         txnum = nextTxNumber();
-        recoveryMgr = new RecoveryMgr(this, txnum, lm, bm);
-        concurMgr = new ConcurrencyMgr();
+        recoveryMgr = new RecoveryMgr(this, txnum, lm, bm, readOnly);
+        concurMgr = new ConcurrencyMgr(txnum, readOnly);
         mybuffers = new BufferList(bm);
     }
 
     /**
      * Commit the current transaction.
-     * Flush all modified buffers (and their log records),
-     * write and flush a commit record to the log,
+     * Write and flush a commit record to the log
+     * (first flushing all modified buffers, if the
+     * recovery manager uses the force policy),
      * release all locks, and unpin any pinned buffers.
      */
     public void commit() {
         recoveryMgr.commit();
         System.out.println("transaction " + txnum + " committed");
-        concurMgr.release();
+        concurMgr.commit();
+        snapshots.clear();
         mybuffers.unpinAll();
     }
 
@@ -70,13 +99,15 @@ public class Transaction {
     public void rollback() {
         recoveryMgr.rollback();
         System.out.println("transaction " + txnum + " rolled back");
-        concurMgr.release();
+        concurMgr.rollback();
+        snapshots.clear();
         mybuffers.unpinAll();
     }
 
     /**
      * Flush all modified buffers.
-     * Then go through the log, rolling back all
+     * Then go through the log, redoing all committed
+     * transactions and rolling back all
      * uncommitted transactions.  Finally,
      * write a quiescent checkpoint record to the log.
      * This method is called during system startup,
@@ -106,6 +137,17 @@ public class Transaction {
      */
     public void unpin(BlockId blk) {
         mybuffers.unpin(blk);
+        if (mybuffers.getBuffer(blk) == null)
+            snapshots.remove(blk);
+    }
+
+    /**
+     * Return whether the transaction is read-only.
+     *
+     * @return true if the transaction is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
     }
 
     /**
@@ -113,15 +155,14 @@ public class Transaction {
      * specified offset of the specified block.
      * The method first obtains an SLock on the block,
      * then it calls the buffer to retrieve the value.
+     * A read-only transaction reads the value from its snapshot.
      *
      * @param blk    a reference to a disk block
      * @param offset the byte offset within the block
      * @return the integer stored at that offset
      */
     public int getInt(BlockId blk, int offset) {
-        concurMgr.sLock(blk);
-        Buffer buff = mybuffers.getBuffer(blk);
-        return buff.contents().getInt(offset);
+        return contents(blk).getInt(offset);
     }
 
     /**
@@ -129,15 +170,31 @@ public class Transaction {
      * specified offset of the specified block.
      * The method first obtains an SLock on the block,
      * then it calls the buffer to retrieve the value.
+     * A read-only transaction reads the value from its snapshot.
      *
      * @param blk    a reference to a disk block
      * @param offset the byte offset within the block
      * @return the string stored at that offset
      */
     public String getString(BlockId blk, int offset) {
-        concurMgr.sLock(blk);
-        Buffer buff = mybuffers.getBuffer(blk);
-        return buff.contents().getString(offset);
+        return contents(blk).getString(offset);
+    }
+
+    /**
+     * Return the page that holds the contents of the
+     * specified block, for a caller that reads many values
+     * from the block.
+     * The method obtains the same SLock or snapshot as
+     * getInt and getString, so that the caller can then
+     * read the page directly for as long as it keeps the
+     * block pinned. The page also shows the transaction's
+     * own later modifications to the block.
+     *
+     * @param blk a reference to a pinned disk block
+     * @return the page from which the block is read
+     */
+    public Page readPage(BlockId blk) {
+        return contents(blk);
     }
 
     /**
@@ -155,14 +212,15 @@ public class Transaction {
      * @param val    the value to be stored
      */
     public void setInt(BlockId blk, int offset, int val, boolean okToLog) {
-        concurMgr.xLock(blk);
-        Buffer buff = mybuffers.getBuffer(blk);
-        int lsn = -1;
-        if (okToLog)
-            lsn = recoveryMgr.setInt(buff, offset, val);
-        Page p = buff.contents();
-        p.setInt(offset, val);
-        buff.setModified(txnum, lsn);
+        Buffer buff = lockForUpdate(blk);
+        synchronized (buff) { // the buffer must not be written between logging and modifying
+            int lsn = -1;
+            if (okToLog && !readOnly && !isTemp(blk))
+                lsn = recoveryMgr.setInt(buff, offset, val);
+            Page p = buff.contents();
+            p.setInt(offset, val);
+            buff.setModified(txnum, lsn);
+        }
     }
 
     /**
@@ -180,14 +238,57 @@ public class Transaction {
      * @param val    the value to be stored
      */
     public void setString(BlockId blk, int offset, String val, boolean okToLog) {
-        concurMgr.xLock(blk);
+        Buffer buff = lockForUpdate(blk);
+        synchronized (buff) { // the buffer must not be written between logging and modifying
+            int lsn = -1;
+            if (okToLog && !readOnly && !isTemp(blk))
+                lsn = recoveryMgr.setString(buff, offset, val);
+            Page p = buff.contents();
+            p.setString(offset, val);
+            buff.setModified(txnum, lsn);
+        }
+    }
+
+    /**
+     * Return the integer stored at the specified offset
+     * of a block that holds hints, such as the free-space
+     * map of a table.
+     * Hints are read from the buffer without locking,
+     * since their values are only used as advice.
+     *
+     * @param blk    a reference to a disk block
+     * @param offset the byte offset within the block
+     * @return the integer stored at that offset
+     */
+    public int getHint(BlockId blk, int offset) {
+        Buffer buff = mybuffers.getBuffer(blk);
+        return buff.contents().getInt(offset);
+    }
+
+    /**
+     * Set or clear the specified bits of the integer stored
+     * at the specified offset of a block that holds hints.
+     * The change is neither locked nor logged, and so may be
+     * seen by other transactions at once, and is not undone
+     * if the transaction rolls back; the bits are changed
+     * atomically with respect to other changes to the block.
+     *
+     * @param blk    a reference to the disk block
+     * @param offset a byte offset within that block
+     * @param bits   the bits to be changed
+     * @param on     true to set the bits, false to clear them
+     */
+    public void setHintBits(BlockId blk, int offset, int bits, boolean on) {
         Buffer buff = mybuffers.getBuffer(blk);
-        int lsn = -1;
-        if (okToLog)
-            lsn = recoveryMgr.setString(buff, offset, val);
-        Page p = buff.contents();
-        p.setString(offset, val);
-        buff.setModified(txnum, lsn);
+        synchronized (buff) {
+            Page p = buff.contents();
+            int word = p.getInt(offset);
+            int newword = on ? (word | bits) : (word & ~bits);
+            if (newword != word) {
+                p.setInt(offset, newword);
+                buff.setModified(txnum, -1);
+            }
+        }
     }
 
     /**
@@ -195,29 +296,69 @@ public class Transaction {
      * This method first obtains an SLock on the
      * "end of the file", before asking the file manager
      * to return the file size.
+     * The lock keeps other transactions from appending to
+     * the file until this one completes, and so protects
+     * the transaction against phantoms.
+     * A read-only transaction takes no lock; any block appended
+     * since its snapshot reads as the empty block it was
+     * when appended.
      *
      * @param filename the name of the file
      * @return the number of blocks in the file
      */
     public int size(String filename) {
-        BlockId dummyblk = new BlockId(filename, END_OF_FILE);
-        concurMgr.sLock(dummyblk);
+        if (!readOnly) {
+            BlockId dummyblk = new BlockId(filename, END_OF_FILE);
+            concurMgr.sLock(dummyblk);
+        }
+        return fm.length(filename);
+    }
+
+    /**
+     * Return the number of blocks in the specified file,
+     * without locking the "end of the file".
+     * The size may change before the transaction completes,
+     * and so this method is for callers that do not
+     * depend on there being no more blocks, such as a scan
+     * looking for a block with room for a new record.
+     *
+     * @param filename the name of the file
+     * @return the current number of blocks in the file
+     */
+    public int currentSize(String filename) {
         return fm.length(filename);
     }
 
     /**
      * Append a new block to the end of the specified file
      * and returns a reference to it.
-     * This method first obtains an XLock on the
-     * "end of the file", before performing the append.
+     * This method first obtains an IXLock on the
+     * "end of the file", which other appending transactions
+     * may hold as well, but a transaction that has read the
+     * size of the file may not.
+     * It then obtains an XLock on the block to be appended,
+     * before the block exists, so that no other transaction
+     * can use the block before the caller has formatted it.
+     * Appending transactions lock their new block the same way,
+     * so a transaction that holds the XLock and still finds
+     * the file at that size is the one to append the block.
      *
      * @param filename the name of the file
      * @return a reference to the newly-created disk block
      */
     public BlockId append(String filename) {
         BlockId dummyblk = new BlockId(filename, END_OF_FILE);
-        concurMgr.xLock(dummyblk);
-        return fm.append(filename);
+        if (readOnly) {
+            checkTemp(dummyblk);
+            return fm.append(filename);
+        }
+        concurMgr.ixLock(dummyblk);
+        while (true) {
+            int blknum = fm.length(filename);
+            concurMgr.xLock(new BlockId(filename, blknum));
+            if (fm.length(filename) == blknum)
+                return fm.append(filename);
+        }
     }
 
     public int blockSize() {
@@ -228,6 +369,59 @@ public class Transaction {
         return bm.available();
     }
 
+    /**
+     * Return the page from which the block is read.
+     * An update transaction first obtains an SLock on the block
+     * and reads the buffer; a read-only transaction reads its
+     * private copy of the block's snapshot, which is kept
+     * while the block is pinned.
+     * Temporary files are private, and are read directly.
+     */
+    private Page contents(BlockId blk) {
+        Buffer buff = mybuffers.getBuffer(blk);
+        if (!readOnly) {
+            concurMgr.sLock(blk);
+            return buff.contents();
+        }
+        if (isTemp(blk))
+            return buff.contents();
+        Page p = snapshots.get(blk);
+        if (p == null) {
+            p = concurMgr.snapshotPage(blk, buff.contents());
+            snapshots.put(blk, p);
+        }
+        return p;
+    }
+
+    /**
+     * Obtain an XLock on the block and save its
+     * current contents in the version store, so that
+     * read-only transactions can still read them.
+     * A read-only transaction may only modify temporary
+     * files, and needs no lock for them.
+     */
+    private Buffer lockForUpdate(BlockId blk) {
+        Buffer buff = mybuffers.getBuffer(blk);
+        if (readOnly) {
+            checkTemp(blk);
+            return buff;
+        }
+        concurMgr.xLock(blk);
+        if (!isTemp(blk))
+            concurMgr.saveVersion(blk, buff.contents());
+        return buff;
+    }
+
+    private void checkTemp(BlockId blk) {
+        if (!isTemp(blk))
+            throw new RuntimeException("transaction " + txnum
+                    + " is read-only and cannot modify " + blk.fileName());
+    }
+
+    private static boolean isTemp(BlockId blk) {
+        return blk.fileName().startsWith("temp");
+    }
+
     private static synchronized int nextTxNumber() {
         nextTxNum++;
         return nextTxNum;
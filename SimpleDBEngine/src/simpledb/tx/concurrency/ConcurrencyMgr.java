@@ -1,9 +1,17 @@
 package simpledb.tx.concurrency;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import simpledb.file.BlockId;
+import simpledb.file.Page;
 
 /**
  * The concurrency manager for the transaction.
@@ -11,6 +19,20 @@ import simpledb.file.BlockId;
  * The concurrency manager keeps track of which locks the
  * transaction currently has, and interacts with the
  * global lock table as needed.
+ * <p>
+ * Locks form a hierarchy of three levels: the database,
+ * each file, and each block of a file.
+ * Before locking a block, the transaction locks the database
+ * and the block's file in the corresponding intention mode.
+ * Once the transaction holds more than a threshold number
+ * of block locks in a file, its locks are escalated to a
+ * single lock on the file, which then covers every block of it.
+ * <p>
+ * A read-only transaction takes no locks at all.
+ * Instead, it reads the snapshot of the database that
+ * existed when it started, which is reconstructed from
+ * the versions that update transactions save in the
+ * global version store before modifying a block.
  *
  * @author Edward Sciore
  */
@@ -21,50 +43,220 @@ public class ConcurrencyMgr {
      * all transactions share the same table.
      */
     private static LockTable locktbl = new LockTable();
-    private Map<BlockId, String> locks = new HashMap<BlockId, String>();
+
+    /**
+     * The global version store. This variable is static because
+     * all transactions share the same store.
+     */
+    private static VersionStore versions = new VersionStore();
+    private static final Object DATABASE = new Object() {
+        public String toString() {
+            return "[database]";
+        }
+    };
+    private static int escalationThreshold = 32;
+    private int txnum;
+    private Map<Object, LockMode> locks = new LinkedHashMap<>();
+    private Map<String, Integer> blockLocks = new HashMap<>();
+    private Set<BlockId> versioned = new HashSet<>();
+    private boolean readOnly;
+    private long snapshot;
+
+    /**
+     * Create the concurrency manager for the specified transaction.
+     *
+     * @param txnum the id of the transaction
+     */
+    public ConcurrencyMgr(int txnum) {
+        this(txnum, false);
+    }
+
+    /**
+     * Create the concurrency manager for the specified transaction.
+     * The snapshot of a read-only transaction is taken here.
+     *
+     * @param txnum    the id of the transaction
+     * @param readOnly whether the transaction is read-only
+     */
+    public ConcurrencyMgr(int txnum, boolean readOnly) {
+        this.txnum = txnum;
+        this.readOnly = readOnly;
+        if (readOnly)
+            snapshot = versions.beginSnapshot(txnum);
+    }
+
+    /**
+     * Set the number of block locks a transaction may hold
+     * in a file before its locks are escalated to a file lock.
+     * A threshold of 0 or less disables escalation.
+     *
+     * @param threshold the maximum number of block locks per file
+     */
+    public static void setEscalationThreshold(int threshold) {
+        escalationThreshold = threshold;
+    }
 
     /**
      * Obtain an SLock on the block, if necessary.
      * The method will ask the lock table for an SLock
-     * if the transaction currently has no locks on that block.
+     * if the transaction holds no lock that covers the block.
      *
      * @param blk a reference to the disk block
      */
     public void sLock(BlockId blk) {
-        if (locks.get(blk) == null) {
-            locktbl.sLock(blk);
-            locks.put(blk, "S");
-        }
+        lockBlock(blk, LockMode.S);
     }
 
     /**
      * Obtain an XLock on the block, if necessary.
-     * If the transaction does not have an XLock on that block,
-     * then the method first gets an SLock on that block
-     * (if necessary), and then upgrades it to an XLock.
+     * If the transaction already has an SLock on that block,
+     * then the lock is upgraded to an XLock.
      *
      * @param blk a reference to the disk block
      */
     public void xLock(BlockId blk) {
-        if (!hasXLock(blk)) {
-            sLock(blk);
-            locktbl.xLock(blk);
-            locks.put(blk, "X");
-        }
+        lockBlock(blk, LockMode.X);
+    }
+
+    /**
+     * Obtain an IXLock on the block, if necessary.
+     * The lock is taken on the end-of-file marker of a file by
+     * transactions that append to it: appending transactions
+     * do not conflict with each other, but do conflict with a
+     * transaction that has read the size of the file.
+     *
+     * @param blk a reference to the disk block
+     */
+    public void ixLock(BlockId blk) {
+        lockBlock(blk, LockMode.IX);
+    }
+
+    /**
+     * Save the current contents of the block in the version
+     * store, if the transaction has not modified it yet.
+     * The method must be called while holding an XLock
+     * on the block, before modifying it.
+     *
+     * @param blk a reference to the disk block
+     * @param p   the page holding the block
+     */
+    public void saveVersion(BlockId blk, Page p) {
+        if (versioned.add(blk))
+            versions.save(txnum, blk, p);
+    }
+
+    /**
+     * Return the contents of the block in the snapshot
+     * of this read-only transaction.
+     *
+     * @param blk     a reference to the disk block
+     * @param current the page holding the block
+     * @return a private copy of the block as of the snapshot
+     */
+    public Page snapshotPage(BlockId blk, Page current) {
+        return new Page(versions.read(blk, snapshot, current));
+    }
+
+    /**
+     * Publish the versions saved by the transaction, which
+     * has committed, and then release all of its locks.
+     * A read-only transaction ends its snapshot instead.
+     */
+    public void commit() {
+        if (readOnly)
+            versions.endSnapshot(txnum);
+        else
+            versions.commit(txnum);
+        release();
+    }
+
+    /**
+     * Discard the versions saved by the transaction, which
+     * has been rolled back, and then release all of its locks.
+     * A read-only transaction ends its snapshot instead.
+     */
+    public void rollback() {
+        if (readOnly)
+            versions.endSnapshot(txnum);
+        else
+            versions.discard(txnum);
+        release();
     }
 
     /**
      * Release all locks by asking the lock table to
      * unlock each one.
+     * The locks are released in the reverse order from
+     * which they were obtained, so that a block is always
+     * unlocked before its file.
      */
     public void release() {
-        for (BlockId blk : locks.keySet())
-            locktbl.unlock(blk);
+        List<Object> resources = new ArrayList<>(locks.keySet());
+        Collections.reverse(resources);
+        for (Object res : resources)
+            locktbl.unlock(res, txnum);
         locks.clear();
+        blockLocks.clear();
+        versioned.clear();
+    }
+
+    private void lockBlock(BlockId blk, LockMode mode) {
+        String filename = blk.fileName();
+        acquire(DATABASE, mode.intention());
+        acquire(filename, mode.intention());
+        if (fileCovers(filename, mode) || holds(blk, mode))
+            return;
+        boolean isNew = !locks.containsKey(blk);
+        acquire(blk, mode);
+        if (isNew && blockLocks.merge(filename, 1, Integer::sum) > escalationThreshold
+                && escalationThreshold > 0)
+            escalate(filename);
+    }
+
+    /**
+     * Replace the transaction's block locks in the file
+     * by a single lock on the file: an SLock if the transaction
+     * has only read the file, and an XLock otherwise.
+     */
+    private void escalate(String filename) {
+        LockMode mode = (locks.get(filename) == LockMode.IS) ? LockMode.S : LockMode.X;
+        acquire(filename, mode);
+        Iterator<Object> iter = locks.keySet().iterator();
+        while (iter.hasNext()) {
+            Object res = iter.next();
+            if (res instanceof BlockId && ((BlockId) res).fileName().equals(filename)) {
+                locktbl.unlock(res, txnum);
+                iter.remove();
+            }
+        }
+        blockLocks.remove(filename);
+    }
+
+    private void acquire(Object res, LockMode mode) {
+        LockMode held = locks.get(res);
+        if (held != null && held.covers(mode))
+            return;
+        LockMode newmode = (held == null) ? mode : held.join(mode);
+        locktbl.lock(res, txnum, newmode);
+        locks.put(res, newmode);
+    }
+
+    /**
+     * Return true if the transaction's lock on the file covers
+     * a lock in the specified mode on every block of the file.
+     * An SLock on the file covers SLocks on its blocks,
+     * and an XLock covers every block lock; intention locks
+     * on the file cover nothing.
+     */
+    private boolean fileCovers(String filename, LockMode mode) {
+        LockMode held = locks.get(filename);
+        if (held == LockMode.X)
+            return true;
+        return (held == LockMode.S || held == LockMode.SIX) && LockMode.S.covers(mode);
     }
 
-    private boolean hasXLock(BlockId blk) {
-        String locktype = locks.get(blk);
-        return locktype != null && locktype.equals("X");
+    private boolean holds(Object res, LockMode mode) {
+        LockMode held = locks.get(res);
+        return held != null && held.covers(mode);
     }
 }
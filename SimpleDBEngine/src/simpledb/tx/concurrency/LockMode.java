@@ -0,0 +1,78 @@
+package simpledb.tx.concurrency;
+
+/**
+ * The modes in which a transaction can lock a resource
+ * of the lock hierarchy: the database, a file, or a block.
+ * The intention modes IS and IX are taken on a resource
+ * before locking one of its descendants in mode S or X;
+ * SIX combines S on the resource with IX on it.
+ */
+public enum LockMode {
+    IS, IX, S, SIX, X;
+
+    private static final boolean[][] COMPATIBLE = {
+            //          IS     IX     S      SIX    X
+            /* IS  */ { true,  true,  true,  true,  false },
+            /* IX  */ { true,  true,  false, false, false },
+            /* S   */ { true,  false, true,  false, false },
+            /* SIX */ { true,  false, false, false, false },
+            /* X   */ { false, false, false, false, false } };
+
+    /**
+     * Return true if another transaction can hold the
+     * specified mode on a resource locked in this mode.
+     *
+     * @param other the other mode
+     * @return true if the two modes are compatible
+     */
+    public boolean compatibleWith(LockMode other) {
+        return COMPATIBLE[ordinal()][other.ordinal()];
+    }
+
+    /**
+     * Return true if a lock in this mode grants
+     * everything that a lock in the specified mode does.
+     *
+     * @param other the other mode
+     * @return true if this mode is at least as strong
+     */
+    public boolean covers(LockMode other) {
+        switch (this) {
+        case X:
+            return true;
+        case SIX:
+            return other != X;
+        case S:
+            return other == S || other == IS;
+        case IX:
+            return other == IX || other == IS;
+        default:
+            return other == IS;
+        }
+    }
+
+    /**
+     * Return the weakest mode that covers both this mode
+     * and the specified one.
+     *
+     * @param other the other mode
+     * @return the combined mode
+     */
+    public LockMode join(LockMode other) {
+        if (covers(other))
+            return this;
+        if (other.covers(this))
+            return other;
+        return SIX; // the combination of S and IX
+    }
+
+    /**
+     * Return the intention mode to be held on the parent
+     * of a resource locked in this mode.
+     *
+     * @return IS for the shared modes, and IX otherwise
+     */
+    public LockMode intention() {
+        return (this == IS || this == S) ? IS : IX;
+    }
+}
@@ -1,107 +1,257 @@
 package simpledb.tx.concurrency;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-
-import simpledb.file.BlockId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * The lock table, which provides methods to lock and unlock blocks.
- * If a transaction requests a lock that causes a conflict with an
- * existing lock, then that transaction is placed on a wait list.
- * There is only one wait list for all blocks.
- * When the last lock on a block is unlocked, then all transactions
- * are removed from the wait list and rescheduled.
- * If one of those transactions discovers that the lock it is waiting for
- * is still locked, it will place itself back on the wait list.
+ * The lock table, which provides methods to lock and unlock
+ * the resources of the lock hierarchy.
+ * A resource is the database, a file, or a block.
+ * For each locked resource, the table records the
+ * transactions holding it and the mode each one holds.
+ * <p>
+ * The table is split into stripes, selected by the hash
+ * value of the resource, each having its own latch,
+ * so that transactions locking different resources
+ * seldom contend with each other.
+ * Each resource has its own FIFO queue of waiting requests.
+ * A request waits if it conflicts with the current holders,
+ * or if earlier requests are already waiting, so that
+ * waiting requests are not starved by later ones;
+ * upgrades of a lock the transaction already holds
+ * go to the front of the queue.
+ * When a lock is released, the requests at the front of the
+ * resource's queue that are now compatible are granted, and
+ * only their threads are woken.
+ * <p>
+ * Waiting requests are recorded in a waits-for graph.
+ * When a request starts waiting, the graph is searched for a
+ * cycle through it; if there is one, the youngest transaction
+ * on the cycle is chosen as the victim and its request is
+ * aborted at once, with a {@link LockAbortException}.
+ * As a fallback, a request that waits for a certain amount
+ * of time (currently 10 seconds) is aborted as well.
  *
  * @author Edward Sciore
  */
 class LockTable {
     private static final long MAX_TIME = 10000; // 10 seconds
+    private static final int NUM_STRIPES = 64;
+
+    private Stripe[] stripes = new Stripe[NUM_STRIPES];
+    private WaitsForGraph graph = new WaitsForGraph();
+    private Map<Integer, Waiter> waiting = new ConcurrentHashMap<>();
 
-    private Map<BlockId, Integer> locks = new HashMap<BlockId, Integer>();
+    LockTable() {
+        for (int i = 0; i < NUM_STRIPES; i++)
+            stripes[i] = new Stripe();
+    }
 
     /**
-     * Grant an SLock on the specified block.
-     * If an XLock exists when the method is called,
-     * then the calling thread will be placed on a wait list
-     * until the lock is released.
-     * If the thread remains on the wait list for a certain
-     * amount of time (currently 10 seconds),
-     * then an exception is thrown.
+     * Grant the transaction a lock on the specified resource
+     * in the specified mode.
+     * If the transaction already holds a lock on the resource,
+     * that lock is upgraded to the join of the two modes.
+     * If the request cannot be granted at once, the calling
+     * thread waits in the resource's queue until it is granted.
+     * If it waits too long, then an exception is thrown.
      *
-     * @param blk a reference to the disk block
+     * @param res   the resource to lock
+     * @param txnum the id of the requesting transaction
+     * @param mode  the requested mode
      */
-    public synchronized void sLock(BlockId blk) {
+    void lock(Object res, int txnum, LockMode mode) {
+        Stripe stripe = stripeOf(res);
+        Waiter w;
+        stripe.latch.lock();
+        try {
+            Entry entry = stripe.entries.computeIfAbsent(res, k -> new Entry());
+            LockMode held = entry.holders.get(txnum);
+            LockMode wanted = (held == null) ? mode : held.join(mode);
+            boolean isUpgrade = (held != null);
+            if ((isUpgrade || entry.queue.isEmpty()) && entry.compatible(txnum, wanted)) {
+                entry.holders.put(txnum, wanted);
+                return;
+            }
+            w = new Waiter(txnum, wanted, stripe);
+            if (isUpgrade)
+                entry.queue.addFirst(w);
+            else
+                entry.queue.addLast(w);
+            waiting.put(txnum, w);
+            updateGraph(entry);
+        } finally {
+            stripe.latch.unlock();
+        }
+
+        // look for deadlocks while holding no latch,
+        // since aborting a victim needs the latch of its stripe;
+        // the new request may have closed several cycles
+        int victim = graph.findVictim(txnum);
+        while (victim >= 0 && victim != txnum) {
+            abort(victim);
+            victim = graph.findVictim(txnum);
+        }
+        if (victim == txnum)
+            abort(txnum);
+
+        stripe.latch.lock();
         try {
-            long timestamp = System.currentTimeMillis();
-            while (hasXlock(blk) && !waitingTooLong(timestamp))
-                wait(MAX_TIME);
-            if (hasXlock(blk))
+            long remaining = TimeUnit.MILLISECONDS.toNanos(MAX_TIME);
+            try {
+                while (!w.granted && !w.aborted && remaining > 0)
+                    remaining = w.cond.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                // treated like a timeout
+            }
+            if (!w.granted) {
+                Entry entry = stripe.entries.get(res);
+                entry.queue.remove(w);
+                waiting.remove(txnum);
+                graph.remove(txnum);
+                grantWaiters(stripe, res, entry);
                 throw new LockAbortException();
-            int val = getLockVal(blk);  // will not be negative
-            locks.put(blk, val + 1);
-        } catch (InterruptedException e) {
-            throw new LockAbortException();
+            }
+        } finally {
+            stripe.latch.unlock();
         }
     }
 
     /**
-     * Grant an XLock on the specified block.
-     * If a lock of any type exists when the method is called,
-     * then the calling thread will be placed on a wait list
-     * until the locks are released.
-     * If the thread remains on the wait list for a certain
-     * amount of time (currently 10 seconds),
-     * then an exception is thrown.
+     * Release the transaction's lock on the specified resource,
+     * and grant the waiting requests that have become compatible.
      *
-     * @param blk a reference to the disk block
+     * @param res   the locked resource
+     * @param txnum the id of the transaction holding the lock
      */
-    synchronized void xLock(BlockId blk) {
+    void unlock(Object res, int txnum) {
+        Stripe stripe = stripeOf(res);
+        stripe.latch.lock();
         try {
-            long timestamp = System.currentTimeMillis();
-            while (hasOtherSLocks(blk) && !waitingTooLong(timestamp))
-                wait(MAX_TIME);
-            if (hasOtherSLocks(blk))
-                throw new LockAbortException();
-            locks.put(blk, -1);
-        } catch (InterruptedException e) {
-            throw new LockAbortException();
+            Entry entry = stripe.entries.get(res);
+            if (entry == null)
+                return;
+            entry.holders.remove(txnum);
+            grantWaiters(stripe, res, entry);
+        } finally {
+            stripe.latch.unlock();
         }
     }
 
     /**
-     * Release a lock on the specified block.
-     * If this lock is the last lock on that block,
-     * then the waiting transactions are notified.
-     *
-     * @param blk a reference to the disk block
+     * Grant the requests at the front of the resource's queue,
+     * in order, until one is incompatible with the holders.
+     * The entry is discarded once nobody holds or waits for it.
+     */
+    private void grantWaiters(Stripe stripe, Object res, Entry entry) {
+        while (!entry.queue.isEmpty()) {
+            Waiter w = entry.queue.peekFirst();
+            if (!entry.compatible(w.txnum, w.mode))
+                break;
+            entry.queue.removeFirst();
+            entry.holders.merge(w.txnum, w.mode, LockMode::join);
+            w.granted = true;
+            w.cond.signal();
+            waiting.remove(w.txnum);
+            graph.remove(w.txnum);
+        }
+        if (entry.holders.isEmpty() && entry.queue.isEmpty())
+            stripe.entries.remove(res);
+        else
+            updateGraph(entry);
+    }
+
+    /**
+     * Replace the edges of every request waiting for the resource,
+     * since its holders or its queue have changed.
      */
-    synchronized void unlock(BlockId blk) {
-        int val = getLockVal(blk);
-        if (val > 1)
-            locks.put(blk, val - 1);
-        else {
-            locks.remove(blk);
-            notifyAll();
+    private void updateGraph(Entry entry) {
+        List<Integer> ahead = new ArrayList<>();
+        for (Waiter w : entry.queue) {
+            if (w.aborted)
+                continue;
+            List<Integer> blockers = new ArrayList<>(ahead);
+            for (Map.Entry<Integer, LockMode> e : entry.holders.entrySet())
+                if (e.getKey() != w.txnum && !w.mode.compatibleWith(e.getValue()))
+                    blockers.add(e.getKey());
+            graph.setEdges(w.txnum, blockers);
+            ahead.add(w.txnum);
+        }
+    }
+
+    /**
+     * Abort the waiting request of a deadlock victim,
+     * unless it has been granted in the meantime, and remove
+     * its edges so that it is not found on another cycle.
+     * The victim's thread notices the abort when it wakes.
+     */
+    private void abort(int victim) {
+        Waiter w = waiting.get(victim);
+        if (w == null) {
+            graph.remove(victim);
+            return;
+        }
+        w.stripe.latch.lock();
+        try {
+            if (!w.granted) {
+                w.aborted = true;
+                w.cond.signal();
+            }
+            graph.remove(victim);
+        } finally {
+            w.stripe.latch.unlock();
         }
     }
 
-    private boolean hasXlock(BlockId blk) {
-        return getLockVal(blk) < 0;
+    private Stripe stripeOf(Object res) {
+        return stripes[(res.hashCode() & Integer.MAX_VALUE) % NUM_STRIPES];
     }
 
-    private boolean hasOtherSLocks(BlockId blk) {
-        return getLockVal(blk) > 1;
+    private static class Stripe {
+        ReentrantLock latch = new ReentrantLock();
+        Map<Object, Entry> entries = new HashMap<>();
     }
 
-    private boolean waitingTooLong(long starttime) {
-        return System.currentTimeMillis() - starttime > MAX_TIME;
+    /**
+     * The holders of a resource and its queue of waiting requests.
+     */
+    private static class Entry {
+        Map<Integer, LockMode> holders = new HashMap<>();
+        Deque<Waiter> queue = new ArrayDeque<>();
+
+        /**
+         * Return true if the mode is compatible with the modes
+         * held by every transaction other than the specified one.
+         */
+        boolean compatible(int txnum, LockMode mode) {
+            for (Map.Entry<Integer, LockMode> e : holders.entrySet())
+                if (e.getKey() != txnum && !mode.compatibleWith(e.getValue()))
+                    return false;
+            return true;
+        }
     }
 
-    private int getLockVal(BlockId blk) {
-        Integer ival = locks.get(blk);
-        return (ival == null) ? 0 : ival.intValue();
+    private static class Waiter {
+        int txnum;
+        LockMode mode;
+        Stripe stripe;
+        Condition cond;
+        boolean granted = false;
+        boolean aborted = false;
+
+        Waiter(int txnum, LockMode mode, Stripe stripe) {
+            this.txnum = txnum;
+            this.mode = mode;
+            this.stripe = stripe;
+            this.cond = stripe.latch.newCondition();
+        }
     }
 }
@@ -0,0 +1,165 @@
+package simpledb.tx.concurrency;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import simpledb.file.BlockId;
+import simpledb.file.Page;
+
+/**
+ * The version store, which keeps the before-images of
+ * modified blocks so that read-only transactions can read
+ * a consistent snapshot of the database without locking.
+ * <p>
+ * Before an update transaction first modifies a block,
+ * it saves a copy of the block in the store.
+ * The copy is tagged with the transaction's commit timestamp
+ * when the transaction commits, and is discarded if it rolls back.
+ * Since update transactions hold XLocks until they complete,
+ * the versions of a block are saved in commit order.
+ * <p>
+ * A read-only transaction is given the current timestamp
+ * when it starts.
+ * To read a block, it uses the oldest version of the block
+ * whose writer committed after that timestamp, or has not
+ * committed yet; if there is none, the current contents of
+ * the block are what it would see.
+ * A version is discarded once no active read-only
+ * transaction can need it.
+ *
+ * @author Edward Sciore
+ */
+class VersionStore {
+    private static final long UNCOMMITTED = Long.MAX_VALUE;
+
+    private long clock = 0;
+    private Map<BlockId, List<Version>> versions = new HashMap<>();
+    private Map<Integer, List<Version>> uncommitted = new HashMap<>();
+    private Map<Integer, Long> snapshots = new HashMap<>();
+    private TreeMap<Long, Integer> snapshotCounts = new TreeMap<>();
+
+    /**
+     * Start a snapshot for the specified read-only transaction.
+     *
+     * @param txnum the id of the transaction
+     * @return the timestamp of the snapshot
+     */
+    synchronized long beginSnapshot(int txnum) {
+        snapshots.put(txnum, clock);
+        snapshotCounts.merge(clock, 1, Integer::sum);
+        return clock;
+    }
+
+    /**
+     * End the snapshot of the specified read-only transaction,
+     * and discard the versions that no other snapshot needs.
+     *
+     * @param txnum the id of the transaction
+     */
+    synchronized void endSnapshot(int txnum) {
+        Long ts = snapshots.remove(txnum);
+        if (ts == null)
+            return;
+        if (snapshotCounts.merge(ts, -1, Integer::sum) == 0)
+            snapshotCounts.remove(ts);
+        long oldest = snapshotCounts.isEmpty() ? UNCOMMITTED - 1 : snapshotCounts.firstKey();
+        Iterator<List<Version>> iter = versions.values().iterator();
+        while (iter.hasNext()) {
+            List<Version> list = iter.next();
+            list.removeIf(v -> v.cts <= oldest);
+            if (list.isEmpty())
+                iter.remove();
+        }
+    }
+
+    /**
+     * Save the contents of the block as they were
+     * before the specified transaction modified it.
+     *
+     * @param txnum the id of the modifying transaction
+     * @param blk   a reference to the disk block
+     * @param p     the page holding the block
+     */
+    synchronized void save(int txnum, BlockId blk, Page p) {
+        Version v = new Version(blk, p.copy());
+        versions.computeIfAbsent(blk, k -> new ArrayList<>()).add(v);
+        uncommitted.computeIfAbsent(txnum, k -> new ArrayList<>()).add(v);
+    }
+
+    /**
+     * Return the contents of the block as of the specified timestamp.
+     * If no saved version is needed, the current contents of the block
+     * are copied; the copy is taken while holding the store's lock,
+     * so that no transaction can start to modify the block meanwhile.
+     *
+     * @param blk     a reference to the disk block
+     * @param ts      the timestamp of the snapshot
+     * @param current the page holding the block
+     * @return the contents of the block as of the timestamp
+     */
+    synchronized byte[] read(BlockId blk, long ts, Page current) {
+        List<Version> list = versions.get(blk);
+        if (list != null)
+            for (Version v : list)
+                if (v.cts > ts)
+                    return v.image;
+        return current.copy();
+    }
+
+    /**
+     * Tag the versions saved by the specified transaction
+     * with a new commit timestamp.
+     * If no read-only transaction is active, none of the
+     * versions can be needed, and they are discarded.
+     *
+     * @param txnum the id of the committing transaction
+     */
+    synchronized void commit(int txnum) {
+        List<Version> saved = uncommitted.remove(txnum);
+        if (saved == null)
+            return;
+        clock++;
+        for (Version v : saved) {
+            v.cts = clock;
+            if (snapshots.isEmpty())
+                remove(v);
+        }
+    }
+
+    /**
+     * Discard the versions saved by the specified transaction.
+     * This method is called once the transaction has been
+     * rolled back, so that its blocks have their
+     * original contents again.
+     *
+     * @param txnum the id of the rolled-back transaction
+     */
+    synchronized void discard(int txnum) {
+        List<Version> saved = uncommitted.remove(txnum);
+        if (saved != null)
+            for (Version v : saved)
+                remove(v);
+    }
+
+    private void remove(Version v) {
+        List<Version> list = versions.get(v.blk);
+        list.remove(v);
+        if (list.isEmpty())
+            versions.remove(v.blk);
+    }
+
+    private static class Version {
+        BlockId blk;
+        byte[] image;
+        long cts = UNCOMMITTED;
+
+        Version(BlockId blk, byte[] image) {
+            this.blk = blk;
+            this.image = image;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package simpledb.tx.concurrency;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The waits-for graph of the lock table.
+ * There is an edge from a waiting transaction to each
+ * transaction it waits for: the holders of conflicting locks
+ * on the resource it requested, and the requests queued ahead of it.
+ * A transaction waits for at most one resource at a time,
+ * so its edges are replaced whenever that resource changes hands,
+ * and removed when it stops waiting.
+ * A deadlock is a cycle in the graph.
+ */
+class WaitsForGraph {
+    private Map<Integer, Set<Integer>> edges = new HashMap<>();
+
+    /**
+     * Set the transactions that the specified transaction waits for.
+     *
+     * @param txnum    the waiting transaction
+     * @param blockers the transactions it waits for
+     */
+    synchronized void setEdges(int txnum, Collection<Integer> blockers) {
+        edges.put(txnum, new HashSet<>(blockers));
+    }
+
+    /**
+     * Remove the edges of a transaction that no longer waits.
+     *
+     * @param txnum the transaction
+     */
+    synchronized void remove(int txnum) {
+        edges.remove(txnum);
+    }
+
+    /**
+     * Look for a cycle through the specified transaction,
+     * and return the youngest transaction on it,
+     * that is, the one with the largest id.
+     * Return -1 if the transaction is not deadlocked.
+     *
+     * @param txnum the transaction that just started waiting
+     * @return the id of the victim, or -1
+     */
+    synchronized int findVictim(int txnum) {
+        List<Integer> path = new ArrayList<>();
+        if (!findPath(txnum, txnum, path, new HashSet<>()))
+            return -1;
+        int victim = txnum;
+        for (int t : path)
+            victim = Math.max(victim, t);
+        return victim;
+    }
+
+    /**
+     * Depth-first search for a path from the current
+     * transaction to the target; the path is left in the list.
+     */
+    private boolean findPath(int current, int target, List<Integer> path, Set<Integer> visited) {
+        Set<Integer> next = edges.get(current);
+        if (next == null)
+            return false;
+        for (int t : next) {
+            if (t == target)
+                return true;
+            if (visited.add(t)) {
+                path.add(t);
+                if (findPath(t, target, path, visited))
+                    return true;
+                path.remove(path.size() - 1);
+            }
+        }
+        return false;
+    }
+}
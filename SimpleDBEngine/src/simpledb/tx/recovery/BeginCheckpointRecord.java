@@ -0,0 +1,93 @@
+package simpledb.tx.recovery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import simpledb.file.Page;
+import simpledb.log.LogMgr;
+import simpledb.tx.Transaction;
+
+/**
+ * The BEGIN_CHECKPOINT log record, which starts
+ * a nonquiescent checkpoint.
+ * It lists the transactions that were active when
+ * the checkpoint began.
+ */
+public class BeginCheckpointRecord implements LogRecord {
+    private List<Integer> txnums = new ArrayList<>();
+
+    /**
+     * Create a log record by reading the list of
+     * active transactions from the log.
+     *
+     * @param p the page containing the log values
+     */
+    public BeginCheckpointRecord(Page p) {
+        int npos = Integer.BYTES;
+        int count = p.getInt(npos);
+        for (int i = 0; i < count; i++)
+            txnums.add(p.getInt(npos + (i + 1) * Integer.BYTES));
+    }
+
+    public int op() {
+        return BEGIN_CHECKPOINT;
+    }
+
+    /**
+     * Checkpoint records have no associated transaction,
+     * and so the method returns a "dummy", negative txid.
+     */
+    public int txNumber() {
+        return -1; // dummy value
+    }
+
+    /**
+     * Return the transactions that were active
+     * when the checkpoint began.
+     *
+     * @return the ids of the active transactions
+     */
+    public List<Integer> activeTxs() {
+        return txnums;
+    }
+
+    /**
+     * Does nothing, because a checkpoint record
+     * contains no undo information.
+     */
+    public void undo(Transaction tx) {
+    }
+
+    /**
+     * Does nothing, because a checkpoint record
+     * contains no redo information.
+     */
+    public void redo(Transaction tx) {
+    }
+
+    public String toString() {
+        return "<BEGIN_CHECKPOINT " + txnums + ">";
+    }
+
+    /**
+     * A static method to write a begin-checkpoint record to the log.
+     * This log record contains the BEGIN_CHECKPOINT operator,
+     * followed by the number of active transactions
+     * and their ids.
+     *
+     * @return the LSN of the last log value
+     */
+    public static int writeToLog(LogMgr lm, Collection<Integer> txnums) {
+        byte[] rec = new byte[(2 + txnums.size()) * Integer.BYTES];
+        Page p = new Page(rec);
+        p.setInt(0, BEGIN_CHECKPOINT);
+        p.setInt(Integer.BYTES, txnums.size());
+        int pos = 2 * Integer.BYTES;
+        for (int txnum : txnums) {
+            p.setInt(pos, txnum);
+            pos += Integer.BYTES;
+        }
+        return lm.append(rec);
+    }
+}
@@ -32,6 +32,13 @@ public class CheckpointRecord implements LogRecord {
     public void undo(Transaction tx) {
     }
 
+    /**
+     * Does nothing, because a checkpoint record
+     * contains no redo information.
+     */
+    public void redo(Transaction tx) {
+    }
+
     public String toString() {
         return "<CHECKPOINT>";
     }
@@ -0,0 +1,96 @@
+package simpledb.tx.recovery;
+
+import simpledb.file.BlockId;
+import simpledb.file.FileMgr;
+import simpledb.file.Page;
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+
+// Run this test twice: the first run takes nonquiescent
+// checkpoints while a transaction is active, the second recovers.
+public class CheckpointTest {
+    private static FileMgr fm;
+    private static SimpleDB db;
+    private static BlockId blk0, blk1;
+
+    public static void main(String[] args) throws Exception {
+        SimpleDB.LOG_SEGMENT_SIZE = 800; // two blocks per segment
+        db = new SimpleDB("checkpointtest", 400, 8);
+        fm = db.fileMgr();
+        blk0 = new BlockId("testfile", 0);
+        blk1 = new BlockId("testfile", 1);
+
+        if (fm.length("testfile") == 0) {
+            fm.append("testfile");
+            fm.append("testfile");
+            modify();
+        } else {
+            recover();
+        }
+    }
+
+    private static void modify() {
+        Transaction tx1 = db.newTx();
+        tx1.pin(blk0);
+        tx1.setInt(blk0, 0, 1, true);
+        tx1.commit();
+
+        // tx2 stays active across the first checkpoints.
+        Transaction tx2 = db.newTx();
+        tx2.pin(blk1);
+        tx2.setInt(blk1, 0, 222, true);
+
+        for (int i = 1; i <= 50; i++) {
+            Transaction tx = db.newTx();
+            tx.pin(blk0);
+            tx.setInt(blk0, 4, i, true);
+            tx.setString(blk0, 30, "value" + i, true);
+            tx.commit();
+            if (i % 10 == 0)
+                RecoveryMgr.checkpoint(db.logMgr(), db.bufferMgr());
+        }
+        printValues("After the checkpoints:");
+        System.out.println("Log segments: " + countSegments());
+
+        tx2.commit();
+        Transaction tx3 = db.newTx();
+        tx3.pin(blk1);
+        tx3.setInt(blk1, 0, 333, true);
+        RecoveryMgr.checkpoint(db.logMgr(), db.bufferMgr());
+        System.out.println("Log segments after tx2 commits: " + countSegments());
+
+        Transaction tx4 = db.newTx();
+        tx4.pin(blk0);
+        tx4.setInt(blk0, 8, 444, true);
+        tx4.commit();
+        printValues("At the crash:");
+        // The system stops here: tx3's change was written by
+        // the checkpoint but tx3 is unfinished, and tx4's change
+        // is only in the log.
+    }
+
+    private static void recover() {
+        Transaction tx = db.newTx();
+        tx.recover();
+        printValues("After recovery (expect 1 50 444 value50, and 222):");
+    }
+
+    private static int countSegments() {
+        int count = 0;
+        for (String filename : fm.fileNames())
+            if (filename.startsWith(SimpleDB.LOG_FILE + "."))
+                count++;
+        return count;
+    }
+
+    // Print the values that made it to disk.
+    private static void printValues(String msg) {
+        System.out.println(msg);
+        Page p0 = new Page(fm.blockSize());
+        Page p1 = new Page(fm.blockSize());
+        fm.read(blk0, p0);
+        fm.read(blk1, p1);
+        System.out.println(p0.getInt(0) + " " + p0.getInt(4) + " " + p0.getInt(8)
+                + " " + p0.getString(30) + ", and " + p1.getInt(0));
+    }
+}
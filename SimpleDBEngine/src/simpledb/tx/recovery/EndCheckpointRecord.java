@@ -0,0 +1,60 @@
+package simpledb.tx.recovery;
+
+import simpledb.file.Page;
+import simpledb.log.LogMgr;
+import simpledb.tx.Transaction;
+
+/**
+ * The END_CHECKPOINT log record, which completes
+ * a nonquiescent checkpoint.
+ * It is written once every buffer modified before
+ * the matching BEGIN_CHECKPOINT record has been written to disk.
+ */
+public class EndCheckpointRecord implements LogRecord {
+    public EndCheckpointRecord() {
+    }
+
+    public int op() {
+        return END_CHECKPOINT;
+    }
+
+    /**
+     * Checkpoint records have no associated transaction,
+     * and so the method returns a "dummy", negative txid.
+     */
+    public int txNumber() {
+        return -1; // dummy value
+    }
+
+    /**
+     * Does nothing, because a checkpoint record
+     * contains no undo information.
+     */
+    public void undo(Transaction tx) {
+    }
+
+    /**
+     * Does nothing, because a checkpoint record
+     * contains no redo information.
+     */
+    public void redo(Transaction tx) {
+    }
+
+    public String toString() {
+        return "<END_CHECKPOINT>";
+    }
+
+    /**
+     * A static method to write an end-checkpoint record to the log.
+     * This log record contains the END_CHECKPOINT operator,
+     * and nothing else.
+     *
+     * @return the LSN of the last log value
+     */
+    public static int writeToLog(LogMgr lm) {
+        byte[] rec = new byte[Integer.BYTES];
+        Page p = new Page(rec);
+        p.setInt(0, END_CHECKPOINT);
+        return lm.append(rec);
+    }
+}
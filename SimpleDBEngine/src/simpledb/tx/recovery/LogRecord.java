@@ -11,7 +11,8 @@ import simpledb.tx.Transaction;
 public interface LogRecord {
     static final int CHECKPOINT = 0, START = 1,
             COMMIT = 2, ROLLBACK = 3,
-            SETINT = 4, SETSTRING = 5;
+            SETINT = 4, SETSTRING = 5,
+            BEGIN_CHECKPOINT = 6, END_CHECKPOINT = 7;
 
     /**
      * Returns the log record's type.
@@ -37,6 +38,15 @@ public interface LogRecord {
      */
     void undo(Transaction tx);
 
+    /**
+     * Redoes the operation encoded by this log record.
+     * As with undo, the only log record types for which
+     * this method does anything are SETINT and SETSTRING.
+     *
+     * @param tx the transaction that is performing the redo.
+     */
+    void redo(Transaction tx);
+
     /**
      * Interpret the bytes returned by the log iterator.
      *
@@ -58,6 +68,10 @@ public interface LogRecord {
             return new SetIntRecord(p);
         case SETSTRING:
             return new SetStringRecord(p);
+        case BEGIN_CHECKPOINT:
+            return new BeginCheckpointRecord(p);
+        case END_CHECKPOINT:
+            return new EndCheckpointRecord();
         default:
             return null;
         }
@@ -1,13 +1,19 @@
 package simpledb.tx.recovery;
 
+import static simpledb.tx.recovery.LogRecord.BEGIN_CHECKPOINT;
 import static simpledb.tx.recovery.LogRecord.CHECKPOINT;
 import static simpledb.tx.recovery.LogRecord.COMMIT;
+import static simpledb.tx.recovery.LogRecord.END_CHECKPOINT;
 import static simpledb.tx.recovery.LogRecord.ROLLBACK;
 import static simpledb.tx.recovery.LogRecord.START;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import simpledb.buffer.Buffer;
 import simpledb.buffer.BufferMgr;
@@ -17,14 +23,32 @@ import simpledb.tx.Transaction;
 
 /**
  * The recovery manager.  Each transaction has its own recovery manager.
+ * Update log records hold both the old and the new value,
+ * so that recovery can redo committed transactions as well as
+ * undo uncommitted ones. A committing transaction therefore
+ * need not write its modified buffers, unless the force
+ * policy has been chosen.
+ * <p>
+ * The class also keeps the table of active transactions,
+ * which it uses to write nonquiescent checkpoints while
+ * transactions are running, and to decide how much of
+ * the log can then be truncated.
+ * <p>
+ * The recovery manager of a read-only transaction writes
+ * no log records at all, since the transaction modifies
+ * nothing that recovery would need to redo or undo.
  *
  * @author Edward Sciore
  */
 public class RecoveryMgr {
+    private static boolean forceAtCommit = false;
+    private static Map<Integer, RecoveryMgr> activeTxs = new HashMap<>();
     private LogMgr lm;
     private BufferMgr bm;
     private Transaction tx;
     private int txnum;
+    private int startblock;
+    private boolean readOnly;
 
     /**
      * Create a recovery manager for the specified transaction.
@@ -32,41 +56,142 @@ public class RecoveryMgr {
      * @param txnum the ID of the specified transaction
      */
     public RecoveryMgr(Transaction tx, int txnum, LogMgr lm, BufferMgr bm) {
+        this(tx, txnum, lm, bm, false);
+    }
+
+    /**
+     * Create a recovery manager for the specified transaction.
+     * Unless the transaction is read-only, a START record
+     * is written to the log.
+     *
+     * @param txnum    the ID of the specified transaction
+     * @param readOnly whether the transaction is read-only
+     */
+    public RecoveryMgr(Transaction tx, int txnum, LogMgr lm, BufferMgr bm, boolean readOnly) {
         this.tx = tx;
         this.txnum = txnum;
         this.lm = lm;
         this.bm = bm;
-        StartRecord.writeToLog(lm, txnum);
+        this.readOnly = readOnly;
+        if (readOnly)
+            return;
+        synchronized (activeTxs) {
+            startblock = lm.currentBlock();
+            StartRecord.writeToLog(lm, txnum);
+            activeTxs.put(txnum, this);
+        }
+    }
+
+    /**
+     * Choose whether committing transactions flush their
+     * modified buffers before writing their commit record.
+     * Recovery is the same for either choice, so the choice
+     * can change between runs of the system.
+     *
+     * @param force true to use the force policy
+     */
+    public static void setForceAtCommit(boolean force) {
+        forceAtCommit = force;
+    }
+
+    /**
+     * Write a nonquiescent checkpoint to the log, and then
+     * truncate the log behind it.
+     * The method writes a BEGIN_CHECKPOINT record listing
+     * the active transactions, writes every modified buffer
+     * to disk, and then writes and flushes an END_CHECKPOINT record.
+     * Transactions keep running during the checkpoint.
+     * Once the checkpoint is complete, recovery never needs the
+     * log before the BEGIN_CHECKPOINT record, except for the
+     * records of transactions that are still active.
+     *
+     * @param lm the log manager
+     * @param bm the buffer manager
+     */
+    public static synchronized void checkpoint(LogMgr lm, BufferMgr bm) {
+        int beginblock;
+        synchronized (activeTxs) {
+            List<Integer> txnums = new ArrayList<>();
+            for (RecoveryMgr rm : activeTxs.values())
+                if (rm.lm == lm)
+                    txnums.add(rm.txnum);
+            beginblock = lm.currentBlock();
+            BeginCheckpointRecord.writeToLog(lm, txnums);
+        }
+        bm.flushAll();
+        int lsn = EndCheckpointRecord.writeToLog(lm);
+        lm.flush(lsn);
+        lm.truncate(oldestNeededBlock(lm, beginblock));
+    }
+
+    /**
+     * Start a thread that writes a nonquiescent checkpoint
+     * at the specified interval.
+     *
+     * @param lm       the log manager
+     * @param bm       the buffer manager
+     * @param interval the time between checkpoints, in milliseconds
+     */
+    public static void startCheckpointer(LogMgr lm, BufferMgr bm, long interval) {
+        Thread checkpointer = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(interval);
+                    checkpoint(lm, bm);
+                }
+            } catch (InterruptedException e) {
+                // the checkpointer only stops when the system does
+            }
+        }, "checkpointer");
+        checkpointer.setDaemon(true);
+        checkpointer.start();
     }
 
     /**
      * Write a commit record to the log, and flushes it to disk.
+     * Under the force policy, the transaction's modified
+     * buffers are flushed first.
+     * A read-only transaction does nothing.
      */
     public void commit() {
-        bm.flushAll(txnum);
+        if (readOnly)
+            return;
+        if (forceAtCommit)
+            bm.flushAll(txnum);
         int lsn = CommitRecord.writeToLog(lm, txnum);
-        lm.flush(lsn);
+        finish();
+        lm.flushCommit(lsn);
     }
 
     /**
      * Write a rollback record to the log and flush it to disk.
+     * The undone buffers are flushed before the record is written,
+     * so that recovery need not look at the transaction again.
+     * A read-only transaction does nothing.
      */
     public void rollback() {
+        if (readOnly)
+            return;
         doRollback();
         bm.flushAll(txnum);
         int lsn = RollbackRecord.writeToLog(lm, txnum);
+        finish();
         lm.flush(lsn);
     }
 
     /**
      * Recover uncompleted transactions from the log
      * and then write a quiescent checkpoint record to the log and flush it.
+     * The log before the checkpoint record is no longer needed,
+     * and is truncated.
      */
     public void recover() {
         doRecover();
         bm.flushAll(txnum);
+        int ckptblock = lm.currentBlock();
         int lsn = CheckpointRecord.writeToLog(lm);
         lm.flush(lsn);
+        lm.truncate(oldestNeededBlock(lm, ckptblock));
     }
 
     /**
@@ -79,7 +204,7 @@ public class RecoveryMgr {
     public int setInt(Buffer buff, int offset, int newval) {
         int oldval = buff.contents().getInt(offset);
         BlockId blk = buff.block();
-        return SetIntRecord.writeToLog(lm, txnum, blk, offset, oldval);
+        return SetIntRecord.writeToLog(lm, txnum, blk, offset, oldval, newval);
     }
 
     /**
@@ -92,7 +217,33 @@ public class RecoveryMgr {
     public int setString(Buffer buff, int offset, String newval) {
         String oldval = buff.contents().getString(offset);
         BlockId blk = buff.block();
-        return SetStringRecord.writeToLog(lm, txnum, blk, offset, oldval);
+        return SetStringRecord.writeToLog(lm, txnum, blk, offset, oldval, newval);
+    }
+
+    /**
+     * Remove the transaction from the table of active transactions,
+     * once its final log record has been written.
+     */
+    private void finish() {
+        synchronized (activeTxs) {
+            activeTxs.remove(txnum);
+        }
+    }
+
+    /**
+     * Return the first log block needed by recovery
+     * after a checkpoint starting at the specified block:
+     * the earlier of that block and the blocks holding
+     * the START records of the active transactions.
+     */
+    private static int oldestNeededBlock(LogMgr lm, int ckptblock) {
+        synchronized (activeTxs) {
+            int oldest = ckptblock;
+            for (RecoveryMgr rm : activeTxs.values())
+                if (rm.lm == lm)
+                    oldest = Math.min(oldest, rm.startblock);
+            return oldest;
+        }
     }
 
     /**
@@ -117,24 +268,67 @@ public class RecoveryMgr {
 
     /**
      * Do a complete database recovery.
-     * The method iterates through the log records.
-     * Whenever it finds a log record for an unfinished
-     * transaction, it calls undo() on that record.
-     * The method stops when it encounters a CHECKPOINT record
-     * or the end of the log.
+     * The method reads the log records back to the most
+     * recent quiescent CHECKPOINT record, the most recent
+     * complete nonquiescent checkpoint, or the start of the log.
+     * It then redoes the log records of committed transactions,
+     * in the order they were written, and undoes the log
+     * records of unfinished transactions, in reverse order.
+     * Rolled back transactions are skipped, since their
+     * rollback already wrote their undone buffers to disk.
+     * <p>
+     * Every buffer modified before a nonquiescent checkpoint
+     * began was written to disk before it ended, so nothing
+     * before its BEGIN_CHECKPOINT record needs to be redone.
+     * The log is read further back only for the transactions
+     * listed in that record that did not finish,
+     * until the START record of each has been found.
      */
     private void doRecover() {
-        Collection<Integer> finishedTxs = new ArrayList<>();
+        List<LogRecord> records = new ArrayList<>();
+        Collection<Integer> committedTxs = new HashSet<>();
+        Collection<Integer> finishedTxs = new HashSet<>();
+        Collection<Integer> unfinishedAtCkpt = null;
+        boolean ckptEnded = false;
+        int redoLimit = -1;
         Iterator<byte[]> iter = lm.iterator();
         while (iter.hasNext()) {
             byte[] bytes = iter.next();
             LogRecord rec = LogRecord.createLogRecord(bytes);
             if (rec.op() == CHECKPOINT)
-                return;
+                break;
+            if (rec.op() == END_CHECKPOINT)
+                ckptEnded = true;
+            else if (rec.op() == BEGIN_CHECKPOINT && ckptEnded && unfinishedAtCkpt == null) {
+                unfinishedAtCkpt = new HashSet<>(((BeginCheckpointRecord) rec).activeTxs());
+                unfinishedAtCkpt.removeAll(finishedTxs);
+                redoLimit = records.size();
+            }
+            if (rec.op() == COMMIT)
+                committedTxs.add(rec.txNumber());
             if (rec.op() == COMMIT || rec.op() == ROLLBACK)
                 finishedTxs.add(rec.txNumber());
-            else if (!finishedTxs.contains(rec.txNumber()))
-                rec.undo(tx);
+            records.add(rec);
+            if (unfinishedAtCkpt != null) {
+                if (rec.op() == START || finishedTxs.contains(rec.txNumber()))
+                    unfinishedAtCkpt.remove(rec.txNumber());
+                if (unfinishedAtCkpt.isEmpty())
+                    break;
+            }
+        }
+        if (redoLimit < 0)
+            redoLimit = records.size();
+
+        // the redo pass
+        for (int i = redoLimit - 1; i >= 0; i--) {
+            LogRecord rec = records.get(i);
+            if (committedTxs.contains(rec.txNumber()))
+                rec.redo(tx);
         }
+
+        // the undo pass
+        for (LogRecord rec : records)
+            if (!finishedTxs.contains(rec.txNumber()))
+                rec.undo(tx);
     }
 }
@@ -0,0 +1,58 @@
+package simpledb.tx.recovery;
+
+import simpledb.file.BlockId;
+import simpledb.file.FileMgr;
+import simpledb.file.Page;
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+
+// Run this test twice: the first run commits without
+// writing the modified buffers, the second recovers.
+public class RedoTest {
+    private static FileMgr fm;
+    private static SimpleDB db;
+    private static BlockId blk0;
+
+    public static void main(String[] args) throws Exception {
+        SimpleDB.FORCE_AT_COMMIT = false;
+        db = new SimpleDB("redotest", 400, 8);
+        fm = db.fileMgr();
+        blk0 = new BlockId("testfile", 0);
+
+        if (fm.length("testfile") == 0) {
+            fm.append("testfile");
+            modify();
+        } else {
+            recover();
+        }
+    }
+
+    private static void modify() {
+        Transaction tx1 = db.newTx();
+        Transaction tx2 = db.newTx();
+        tx1.pin(blk0);
+        tx2.pin(blk0);
+        tx1.setInt(blk0, 0, 111, true);
+        tx1.setString(blk0, 30, "abc", true);
+        tx1.commit();
+        tx2.setInt(blk0, 0, 222, true);
+        tx2.setString(blk0, 30, "xyz", true);
+        printValues("After commit of tx1 and update by tx2:");
+        // The system stops here: tx1's changes are only in the log,
+        // and tx2 neither committed nor rolled back.
+    }
+
+    private static void recover() {
+        Transaction tx = db.newTx();
+        tx.recover();
+        printValues("After recovery (expect 111 abc):");
+    }
+
+    // Print the values that made it to disk.
+    private static void printValues(String msg) {
+        System.out.println(msg);
+        Page p0 = new Page(fm.blockSize());
+        fm.read(blk0, p0);
+        System.out.println(p0.getInt(0) + " " + p0.getString(30));
+    }
+}
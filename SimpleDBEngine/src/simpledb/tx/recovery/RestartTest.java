@@ -0,0 +1,74 @@
+package simpledb.tx.recovery;
+
+import simpledb.plan.Plan;
+import simpledb.plan.Planner;
+import simpledb.query.Scan;
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+
+// Run this test twice: the first run loads a table and runs
+// queries that sort into temporary tables, the second reopens
+// the database and runs the same queries, which must give
+// the same results.
+public class RestartTest {
+    private static final int N = 500;
+
+    public static void main(String[] args) throws Exception {
+        SimpleDB db = new SimpleDB("restarttest");
+        Planner planner = db.planner();
+        Transaction tx = db.newTx();
+        if (db.fileMgr().length("t.tbl") == 0) {
+            planner.executeUpdate("create table t(a int, b int)", tx);
+            for (int i = 0; i < N; i++)
+                planner.executeUpdate("insert into t(a, b) values (" + i + ", " + (i % 13) + ")", tx);
+            tx.commit();
+            tx = db.newTx();
+            System.out.println("Before the restart:");
+        } else
+            System.out.println("After the restart:");
+        runQueries(planner, tx);
+        tx.commit();
+    }
+
+    private static void runQueries(Planner planner, Transaction tx) {
+        boolean ok = true;
+
+        Scan s = open(planner, tx, "select a, b from t order by b, a");
+        int count = 0, preva = -1, prevb = -1;
+        while (s.next()) {
+            int a = s.getInt("a"), b = s.getInt("b");
+            ok = ok && (b > prevb || (b == prevb && a > preva));
+            preva = a;
+            prevb = b;
+            count++;
+        }
+        s.close();
+        System.out.println("order by returned " + count + " records (expect " + N + ")");
+        ok = ok && count == N;
+
+        s = open(planner, tx, "select b, count(a) from t group by b");
+        count = 0;
+        while (s.next()) {
+            ok = ok && s.getInt("countofa") == (N / 13) + (s.getInt("b") < N % 13 ? 1 : 0);
+            count++;
+        }
+        s.close();
+        System.out.println("group by returned " + count + " groups (expect 13)");
+        ok = ok && count == 13;
+
+        s = open(planner, tx, "select distinct b from t");
+        count = 0;
+        while (s.next())
+            count++;
+        s.close();
+        System.out.println("distinct returned " + count + " records (expect 13)");
+        ok = ok && count == 13;
+
+        System.out.println(ok ? "The results are correct." : "The results are wrong.");
+    }
+
+    private static Scan open(Planner planner, Transaction tx, String qry) {
+        Plan p = planner.createQueryPlan(qry, tx);
+        return p.open();
+    }
+}
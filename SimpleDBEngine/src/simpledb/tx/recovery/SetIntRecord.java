@@ -6,7 +6,7 @@ import simpledb.log.LogMgr;
 import simpledb.tx.Transaction;
 
 public class SetIntRecord implements LogRecord {
-    private int txnum, offset, val;
+    private int txnum, offset, oldval, newval;
     private BlockId blk;
 
     /**
@@ -25,7 +25,9 @@ public class SetIntRecord implements LogRecord {
         int opos = bpos + Integer.BYTES;
         offset = p.getInt(opos);
         int vpos = opos + Integer.BYTES;
-        val = p.getInt(vpos);
+        oldval = p.getInt(vpos);
+        int npos = vpos + Integer.BYTES;
+        newval = p.getInt(npos);
     }
 
     public int op() {
@@ -37,7 +39,7 @@ public class SetIntRecord implements LogRecord {
     }
 
     public String toString() {
-        return "<SETINT " + txnum + " " + blk + " " + offset + " " + val + ">";
+        return "<SETINT " + txnum + " " + blk + " " + offset + " " + oldval + " " + newval + ">";
     }
 
     /**
@@ -49,8 +51,26 @@ public class SetIntRecord implements LogRecord {
      * @see simpledb.tx.recovery.LogRecord#undo(int)
      */
     public void undo(Transaction tx) {
+        if (blk.fileName().startsWith("temp"))
+            return; // temporary files are deleted at startup, and must not be recreated
         tx.pin(blk);
-        tx.setInt(blk, offset, val, false); // don't log the undo!
+        tx.setInt(blk, offset, oldval, false); // don't log the undo!
+        tx.unpin(blk);
+    }
+
+    /**
+     * Replace the specified data value with the new value saved in the log record.
+     * The method pins a buffer to the specified block,
+     * calls setInt to reapply the value,
+     * and unpins the buffer.
+     *
+     * @see simpledb.tx.recovery.LogRecord#redo(Transaction)
+     */
+    public void redo(Transaction tx) {
+        if (blk.fileName().startsWith("temp"))
+            return; // temporary files are deleted at startup, and must not be recreated
+        tx.pin(blk);
+        tx.setInt(blk, offset, newval, false); // don't log the redo!
         tx.unpin(blk);
     }
 
@@ -58,25 +78,27 @@ public class SetIntRecord implements LogRecord {
      * A static method to write a setInt record to the log.
      * This log record contains the SETINT operator,
      * followed by the transaction id, the filename, number,
-     * and offset of the modified block, and the previous
-     * integer value at that offset.
+     * and offset of the modified block, the previous
+     * integer value at that offset, and the new value.
      *
      * @return the LSN of the last log value
      */
-    public static int writeToLog(LogMgr lm, int txnum, BlockId blk, int offset, int val) {
+    public static int writeToLog(LogMgr lm, int txnum, BlockId blk, int offset, int oldval, int newval) {
         int tpos = Integer.BYTES;
         int fpos = tpos + Integer.BYTES;
         int bpos = fpos + Page.maxLength(blk.fileName().length());
         int opos = bpos + Integer.BYTES;
         int vpos = opos + Integer.BYTES;
-        byte[] rec = new byte[vpos + Integer.BYTES];
+        int npos = vpos + Integer.BYTES;
+        byte[] rec = new byte[npos + Integer.BYTES];
         Page p = new Page(rec);
         p.setInt(0, SETINT);
         p.setInt(tpos, txnum);
         p.setString(fpos, blk.fileName());
         p.setInt(bpos, blk.number());
         p.setInt(opos, offset);
-        p.setInt(vpos, val);
+        p.setInt(vpos, oldval);
+        p.setInt(npos, newval);
         return lm.append(rec);
     }
 }
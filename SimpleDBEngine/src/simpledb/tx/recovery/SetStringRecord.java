@@ -7,7 +7,7 @@ import simpledb.tx.Transaction;
 
 public class SetStringRecord implements LogRecord {
     private int txnum, offset;
-    private String val;
+    private String oldval, newval;
     private BlockId blk;
 
     /**
@@ -26,7 +26,9 @@ public class SetStringRecord implements LogRecord {
         int opos = bpos + Integer.BYTES;
         offset = p.getInt(opos);
         int vpos = opos + Integer.BYTES;
-        val = p.getString(vpos);
+        oldval = p.getString(vpos);
+        int npos = vpos + Page.maxLength(oldval.length());
+        newval = p.getString(npos);
     }
 
     public int op() {
@@ -38,7 +40,7 @@ public class SetStringRecord implements LogRecord {
     }
 
     public String toString() {
-        return "<SETSTRING " + txnum + " " + blk + " " + offset + " " + val + ">";
+        return "<SETSTRING " + txnum + " " + blk + " " + offset + " " + oldval + " " + newval + ">";
     }
 
     /**
@@ -50,8 +52,26 @@ public class SetStringRecord implements LogRecord {
      * @see simpledb.tx.recovery.LogRecord#undo(int)
      */
     public void undo(Transaction tx) {
+        if (blk.fileName().startsWith("temp"))
+            return; // temporary files are deleted at startup, and must not be recreated
         tx.pin(blk);
-        tx.setString(blk, offset, val, false); // don't log the undo!
+        tx.setString(blk, offset, oldval, false); // don't log the undo!
+        tx.unpin(blk);
+    }
+
+    /**
+     * Replace the specified data value with the new value saved in the log record.
+     * The method pins a buffer to the specified block,
+     * calls setString to reapply the value,
+     * and unpins the buffer.
+     *
+     * @see simpledb.tx.recovery.LogRecord#redo(Transaction)
+     */
+    public void redo(Transaction tx) {
+        if (blk.fileName().startsWith("temp"))
+            return; // temporary files are deleted at startup, and must not be recreated
+        tx.pin(blk);
+        tx.setString(blk, offset, newval, false); // don't log the redo!
         tx.unpin(blk);
     }
 
@@ -59,18 +79,19 @@ public class SetStringRecord implements LogRecord {
      * A static method to write a setInt record to the log.
      * This log record contains the SETINT operator,
      * followed by the transaction id, the filename, number,
-     * and offset of the modified block, and the previous
-     * integer value at that offset.
+     * and offset of the modified block, the previous
+     * string value at that offset, and the new value.
      *
      * @return the LSN of the last log value
      */
-    public static int writeToLog(LogMgr lm, int txnum, BlockId blk, int offset, String val) {
+    public static int writeToLog(LogMgr lm, int txnum, BlockId blk, int offset, String oldval, String newval) {
         int tpos = Integer.BYTES;
         int fpos = tpos + Integer.BYTES;
         int bpos = fpos + Page.maxLength(blk.fileName().length());
         int opos = bpos + Integer.BYTES;
         int vpos = opos + Integer.BYTES;
-        int reclen = vpos + Page.maxLength(val.length());
+        int npos = vpos + Page.maxLength(oldval.length());
+        int reclen = npos + Page.maxLength(newval.length());
         byte[] rec = new byte[reclen];
         Page p = new Page(rec);
         p.setInt(0, SETSTRING);
@@ -78,7 +99,8 @@ public class SetStringRecord implements LogRecord {
         p.setString(fpos, blk.fileName());
         p.setInt(bpos, blk.number());
         p.setInt(opos, offset);
-        p.setString(vpos, val);
+        p.setString(vpos, oldval);
+        p.setString(npos, newval);
         return lm.append(rec);
     }
 }
\ No newline at end of file
@@ -32,6 +32,13 @@ public class StartRecord implements LogRecord {
     public void undo(Transaction tx) {
     }
 
+    /**
+     * Does nothing, because a start record
+     * contains no redo information.
+     */
+    public void redo(Transaction tx) {
+    }
+
     public String toString() {
         return "<START " + txnum + ">";
     }